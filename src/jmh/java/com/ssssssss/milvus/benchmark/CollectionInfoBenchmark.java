@@ -0,0 +1,58 @@
+package com.ssssssss.milvus.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ssssssss.milvus.model.CollectionInfo;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 集合列表经CollectionInfo.toMap转换后序列化，与直接序列化实体对比
+ *
+ * @author 冰点
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionInfoBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int collections;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<CollectionInfo> infos;
+
+    @Setup
+    public void setup() {
+        infos = new ArrayList<>(collections);
+        for (int i = 0; i < collections; i++) {
+            infos.add(new CollectionInfo("collection_" + i, "描述" + i, 768, i * 1000L, "已加载"));
+        }
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> toMap() {
+        List<Map<String, Object>> result = new ArrayList<>(infos.size());
+        for (CollectionInfo info : infos) {
+            result.add(info.toMap());
+        }
+        return result;
+    }
+
+    @Benchmark
+    public byte[] toMapJson() throws Exception {
+        return objectMapper.writeValueAsBytes(toMap());
+    }
+
+    @Benchmark
+    public byte[] entityJson() throws Exception {
+        return objectMapper.writeValueAsBytes(infos);
+    }
+}
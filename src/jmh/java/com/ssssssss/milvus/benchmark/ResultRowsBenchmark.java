@@ -0,0 +1,118 @@
+package com.ssssssss.milvus.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ssssssss.milvus.service.SearchService;
+import com.ssssssss.milvus.util.ResultJsonWriter;
+import io.milvus.grpc.QueryResults;
+import io.milvus.grpc.SearchResultData;
+import io.milvus.response.QueryResultsWrapper;
+import io.milvus.response.SearchResultsWrapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查询和搜索结果转换为逐行Map再序列化为JSON，与ResultJsonWriter直接从protobuf写出JSON的开销对比
+ *
+ * @author 冰点
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ResultRowsBenchmark {
+
+    @Param({"128", "768", "4096"})
+    private int dimension;
+
+    @Param({"1", "100", "10000"})
+    private int batch;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // 转换方法不依赖注入的字段，直接实例化
+    private final SearchService searchService = new SearchService();
+
+    private QueryResults queryResults;
+
+    private SearchResultData searchResults;
+
+    private List<Map<String, Object>> queryRows;
+
+    private List<Map<String, Object>> searchRows;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Setup
+    public void setup() {
+        queryResults = StubResults.query(batch, dimension);
+        searchResults = StubResults.search(batch, dimension);
+        queryRows = queryRows();
+        searchRows = searchRows();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> queryRows() {
+        return toRows(new QueryResultsWrapper(queryResults), true);
+    }
+
+    @Benchmark
+    public byte[] queryRowsJson() throws Exception {
+        return objectMapper.writeValueAsBytes(Map.of("data", queryRows));
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> searchRows() {
+        return searchService.toRows(new SearchResultsWrapper(searchResults), 0);
+    }
+
+    @Benchmark
+    public byte[] searchRowsJson() throws Exception {
+        return objectMapper.writeValueAsBytes(Map.of("results", searchRows));
+    }
+
+    @Benchmark
+    public int queryRowsStreaming() throws Exception {
+        out.reset();
+        try (JsonGenerator generator = ResultJsonWriter.createGenerator(objectMapper.getFactory(), out)) {
+            ResultJsonWriter.writeQueryRows(generator, queryResults, ResultJsonWriter.Format.DEFAULT);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int searchRowsStreaming() throws Exception {
+        out.reset();
+        try (JsonGenerator generator = ResultJsonWriter.createGenerator(objectMapper.getFactory(), out)) {
+            ResultJsonWriter.writeSearchRows(generator, searchResults, 0, ResultJsonWriter.Format.DEFAULT);
+        }
+        return out.size();
+    }
+
+    /**
+     * 改用ResultJsonWriter之前查询接口的逐行转换，作为对比基线保留在基准测试中
+     */
+    private static List<Map<String, Object>> toRows(QueryResultsWrapper wrapper, boolean includeVectors) {
+        // FieldDataWrapper.get(int, String)仅支持JSON字段，这里按列取出整列数据后逐行组装
+        List<?> ids = wrapper.getFieldWrapper("id").getFieldData();
+        List<?> vectors = includeVectors ? wrapper.getFieldWrapper("vector").getFieldData() : null;
+        List<Map<String, Object>> rows = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", ids.get(i));
+            if (vectors != null) {
+                row.put("vector", vectors.get(i));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
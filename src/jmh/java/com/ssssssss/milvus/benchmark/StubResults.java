@@ -0,0 +1,90 @@
+package com.ssssssss.milvus.benchmark;
+
+import io.milvus.grpc.*;
+
+import java.util.SplittableRandom;
+
+/**
+ * 本地构造的Milvus返回结果，代替真实的Milvus服务
+ *
+ * @author 冰点
+ */
+final class StubResults {
+
+    private StubResults() {
+    }
+
+    /**
+     * query返回的rows行id与向量
+     */
+    static QueryResults query(int rows, int dimension) {
+        SplittableRandom random = new SplittableRandom(rows * 31L + dimension);
+        return QueryResults.newBuilder()
+                .addFieldsData(ids(rows))
+                .addFieldsData(vectors(random, rows, dimension))
+                .addOutputFields("id")
+                .addOutputFields("vector")
+                .build();
+    }
+
+    /**
+     * 单条查询的搜索结果，topK行，输出字段为向量
+     */
+    static SearchResultData search(int topK, int dimension) {
+        SplittableRandom random = new SplittableRandom(topK * 31L + dimension);
+        LongArray.Builder ids = LongArray.newBuilder();
+        SearchResultData.Builder builder = SearchResultData.newBuilder()
+                .setNumQueries(1)
+                .setTopK(topK)
+                .addTopks(topK);
+        float score = 0f;
+        for (int i = 0; i < topK; i++) {
+            ids.addData(i);
+            score += (float) random.nextDouble();
+            builder.addScores(score);
+        }
+        return builder
+                .setIds(IDs.newBuilder().setIntId(ids))
+                .addFieldsData(vectors(random, topK, dimension))
+                .addOutputFields("vector")
+                .build();
+    }
+
+    /**
+     * 随机向量，作为请求体解码的输入
+     */
+    static float[][] vectors(int rows, int dimension) {
+        SplittableRandom random = new SplittableRandom(rows * 17L + dimension);
+        float[][] vectors = new float[rows][dimension];
+        for (float[] vector : vectors) {
+            for (int d = 0; d < dimension; d++) {
+                vector[d] = (float) random.nextDouble();
+            }
+        }
+        return vectors;
+    }
+
+    private static FieldData ids(int rows) {
+        LongArray.Builder ids = LongArray.newBuilder();
+        for (int i = 0; i < rows; i++) {
+            ids.addData(i);
+        }
+        return FieldData.newBuilder()
+                .setFieldName("id")
+                .setType(DataType.Int64)
+                .setScalars(ScalarField.newBuilder().setLongData(ids))
+                .build();
+    }
+
+    private static FieldData vectors(SplittableRandom random, int rows, int dimension) {
+        FloatArray.Builder data = FloatArray.newBuilder();
+        for (int i = 0; i < rows * dimension; i++) {
+            data.addData((float) random.nextDouble());
+        }
+        return FieldData.newBuilder()
+                .setFieldName("vector")
+                .setType(DataType.FloatVector)
+                .setVectors(VectorField.newBuilder().setDim(dimension).setFloatVector(data))
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.ssssssss.milvus.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ssssssss.milvus.util.VectorCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求体向量解码的开销：JSON的List&lt;List&lt;Float&gt;&gt;与二进制float32
+ *
+ * @author 冰点
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class VectorDecodeBenchmark {
+
+    private static final TypeReference<List<List<Float>>> VECTORS = new TypeReference<>() {
+    };
+
+    @Param({"128", "768", "4096"})
+    private int dimension;
+
+    @Param({"1", "100", "10000"})
+    private int batch;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private byte[] json;
+
+    private byte[] binary;
+
+    @Setup
+    public void setup() throws Exception {
+        float[][] vectors = StubResults.vectors(batch, dimension);
+        json = objectMapper.writeValueAsBytes(VectorCodec.asLists(vectors));
+        ByteBuffer buffer = ByteBuffer.allocate(batch * dimension * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (float[] vector : vectors) {
+            for (float v : vector) {
+                buffer.putFloat(v);
+            }
+        }
+        binary = buffer.array();
+    }
+
+    @Benchmark
+    public List<List<Float>> jackson() throws Exception {
+        return objectMapper.readValue(json, VECTORS);
+    }
+
+    @Benchmark
+    public float[][] binary() {
+        return VectorCodec.decode(binary, dimension);
+    }
+
+    /**
+     * 二进制解码后再装箱为SDK需要的List&lt;List&lt;Float&gt;&gt;
+     */
+    @Benchmark
+    public List<List<Float>> binaryAsLists() {
+        return VectorCodec.asLists(VectorCodec.decode(binary, dimension));
+    }
+}
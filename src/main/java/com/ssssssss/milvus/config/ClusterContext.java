@@ -0,0 +1,85 @@
+package com.ssssssss.milvus.config;
+
+import java.util.function.Supplier;
+
+/**
+ * 当前请求所使用的Milvus集群上下文
+ *
+ * <p>由{@link ClusterRoutingFilter}根据请求头或路径前缀设置，提交到线程池的任务需通过
+ * {@link #wrap}传递上下文。</p>
+ *
+ * @author 冰点
+ */
+public class ClusterContext {
+
+    public static final String DEFAULT_CLUSTER = "default";
+
+    public static final String HEADER = "X-Milvus-Cluster";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 获取当前集群ID，未设置时返回默认集群
+     */
+    public static String current() {
+        String clusterId = CURRENT.get();
+        return clusterId != null ? clusterId : DEFAULT_CLUSTER;
+    }
+
+    public static void set(String clusterId) {
+        CURRENT.set(clusterId);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 生成带集群前缀的缓存键
+     */
+    public static String scoped(String name) {
+        return current() + "/" + name;
+    }
+
+    /**
+     * 包装任务，使其在执行线程上沿用提交时的集群
+     */
+    public static <T> Supplier<T> wrap(Supplier<T> supplier) {
+        String clusterId = current();
+        return () -> {
+            String previous = CURRENT.get();
+            CURRENT.set(clusterId);
+            try {
+                return supplier.get();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    public static Runnable wrap(Runnable runnable) {
+        String clusterId = current();
+        return () -> runIn(clusterId, runnable);
+    }
+
+    /**
+     * 在指定集群上下文中执行任务
+     */
+    public static void runIn(String clusterId, Runnable runnable) {
+        String previous = CURRENT.get();
+        CURRENT.set(clusterId);
+        try {
+            runnable.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    private static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
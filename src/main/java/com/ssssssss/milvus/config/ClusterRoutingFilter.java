@@ -0,0 +1,45 @@
+package com.ssssssss.milvus.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 集群路由过滤器，根据X-Milvus-Cluster请求头或 /api/clusters/{id}/milvus/** 路径前缀选择集群
+ *
+ * @author 冰点
+ */
+@Component
+public class ClusterRoutingFilter extends OncePerRequestFilter {
+
+    private static final String PREFIX = "/api/clusters/";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        try {
+            if (path.startsWith(PREFIX)) {
+                int slash = path.indexOf('/', PREFIX.length());
+                if (slash > 0 && path.startsWith("/milvus/", slash)) {
+                    // 路径前缀形式：转发到不带前缀的接口
+                    ClusterContext.set(path.substring(PREFIX.length(), slash));
+                    request.getRequestDispatcher("/api" + path.substring(slash)).forward(request, response);
+                    return;
+                }
+            }
+            String clusterId = request.getHeader(ClusterContext.HEADER);
+            if (clusterId != null && !clusterId.isEmpty()) {
+                ClusterContext.set(clusterId);
+            }
+            filterChain.doFilter(request, response);
+        } finally {
+            ClusterContext.clear();
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.ssssssss.milvus.config;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.ssssssss.milvus.model.ClusterInfo;
+import io.milvus.client.MilvusClient;
+import io.milvus.client.MilvusServiceClient;
+import io.milvus.grpc.CheckHealthResponse;
+import io.milvus.param.ConnectParam;
+import io.milvus.param.R;
+import io.milvus.param.collection.HasCollectionParam;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Milvus客户端注册表，按主机/端口/用户/数据库复用客户端连接
+ *
+ * <p>非默认集群空闲超时后自动关闭，后台定期做健康检查。被替换或移除的客户端先退役，
+ * 经{@link #invoke}发出的调用（异步调用到Future完成为止）全部结束后才关闭，不会中断进行中的请求。</p>
+ *
+ * @author 冰点
+ */
+@Slf4j
+public class MilvusClientRegistry implements AutoCloseable {
+
+    private final Map<String, Entry> clients = new ConcurrentHashMap<>();
+    private final long idleTimeoutMs;
+    private final long keepAliveSeconds;
+    private final ScheduledExecutorService scheduler;
+
+    public MilvusClientRegistry(long idleTimeoutMs, long keepAliveSeconds, long healthCheckSeconds) {
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.keepAliveSeconds = keepAliveSeconds;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "milvus-client-registry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::maintain, healthCheckSeconds, healthCheckSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 注册默认集群
+     */
+    public void registerDefault(String host, int port, String username, String password, String database) {
+        Entry entry = createEntry(ClusterContext.DEFAULT_CLUSTER, host, port, username, password, database, true);
+        clients.put(ClusterContext.DEFAULT_CLUSTER, entry);
+    }
+
+    /**
+     * 注册集群并验证连接，返回集群ID；相同连接参数复用已有客户端
+     *
+     * <p>密码变化时先用新客户端验证连接，成功后才替换已有客户端，旧客户端在进行中的调用结束后关闭；
+     * 验证失败时关闭新客户端并抛出IllegalStateException，已注册的客户端不受影响。</p>
+     */
+    public String register(String host, int port, String username, String password, String database) {
+        String id = clusterId(host, port, username, database);
+        Entry existing = clients.get(id);
+        if (existing != null && Objects.equals(existing.password, password)) {
+            existing.touch();
+            String failure = probe(existing.client);
+            if (failure != null) {
+                throw new IllegalStateException(failure);
+            }
+            return id;
+        }
+
+        Entry candidate = createEntry(id, host, port, username, password, database, false);
+        String failure = probe(candidate.client);
+        if (failure != null) {
+            closeQuietly(candidate);
+            throw new IllegalStateException(failure);
+        }
+        Entry[] replaced = new Entry[1];
+        Entry entry = clients.compute(id, (key, current) -> {
+            // 验证期间其他请求已用相同密码注册时沿用其客户端
+            if (current != null && Objects.equals(current.password, password)) {
+                return current;
+            }
+            replaced[0] = current;
+            return candidate;
+        });
+        if (entry != candidate) {
+            closeQuietly(candidate);
+        }
+        entry.touch();
+        if (replaced[0] != null) {
+            retire(replaced[0]);
+        }
+        return id;
+    }
+
+    /**
+     * 获取指定集群的客户端
+     */
+    public MilvusClient get(String clusterId) {
+        Entry entry = clients.get(clusterId);
+        if (entry == null) {
+            throw new IllegalArgumentException("未知的Milvus集群: " + clusterId);
+        }
+        entry.touch();
+        return entry.client;
+    }
+
+    /**
+     * 在当前请求对应集群的客户端上执行调用并计入进行中的调用数，异步调用在Future完成时才结束计数
+     */
+    public Object invoke(Invocation invocation) throws Throwable {
+        Entry entry = acquire(ClusterContext.current());
+        Object result;
+        try {
+            result = invocation.invoke(entry.client);
+        } catch (Throwable t) {
+            entry.release();
+            throw t;
+        }
+        if (result instanceof ListenableFuture<?> future) {
+            future.addListener(entry::release, MoreExecutors.directExecutor());
+        } else {
+            entry.release();
+        }
+        return result;
+    }
+
+    /**
+     * 移除集群客户端，进行中的调用结束后关闭，默认集群不可移除
+     */
+    public boolean remove(String clusterId) {
+        if (ClusterContext.DEFAULT_CLUSTER.equals(clusterId)) {
+            return false;
+        }
+        Entry entry = clients.remove(clusterId);
+        if (entry == null) {
+            return false;
+        }
+        retire(entry);
+        return true;
+    }
+
+    /**
+     * 列出所有已注册集群
+     */
+    public List<ClusterInfo> list() {
+        List<ClusterInfo> result = new ArrayList<>();
+        for (Entry entry : clients.values()) {
+            result.add(new ClusterInfo(entry.id, entry.host, entry.port, entry.username, entry.database,
+                    entry.healthy, entry.lastUsedAt));
+        }
+        return result;
+    }
+
+    /**
+     * 立即对集群做一次健康检查
+     */
+    public boolean checkHealth(String clusterId) {
+        Entry entry = clients.get(clusterId);
+        if (entry == null) {
+            return false;
+        }
+        entry.healthy = isHealthy(entry.client);
+        return entry.healthy;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        for (Entry entry : clients.values()) {
+            closeQuietly(entry);
+        }
+        clients.clear();
+    }
+
+    private Entry createEntry(String id, String host, int port, String username, String password,
+                              String database, boolean pinned) {
+        ConnectParam.Builder connectParamBuilder = ConnectParam.newBuilder()
+                .withHost(host)
+                .withPort(port)
+                .withKeepAliveTime(keepAliveSeconds, TimeUnit.SECONDS)
+                .keepAliveWithoutCalls(true);
+
+        // 如果配置了用户名和密码，则添加认证信息
+        if (username != null && password != null && !username.isEmpty() && !password.isEmpty()) {
+            connectParamBuilder.withAuthorization(username, password);
+        }
+        if (database != null && !database.isEmpty()) {
+            connectParamBuilder.withDatabaseName(database);
+        }
+
+        MilvusClient client = new MilvusServiceClient(connectParamBuilder.build());
+        return new Entry(id, host, port, username, password, database, client, pinned);
+    }
+
+    private void maintain() {
+        long now = System.currentTimeMillis();
+        for (Entry entry : new ArrayList<>(clients.values())) {
+            if (!entry.pinned && now - entry.lastUsedAt > idleTimeoutMs) {
+                log.info("关闭空闲的Milvus客户端: {}:{}", entry.host, entry.port);
+                if (clients.remove(entry.id, entry)) {
+                    retire(entry);
+                }
+                continue;
+            }
+            entry.healthy = isHealthy(entry.client);
+        }
+    }
+
+    /**
+     * 执行一个简单操作验证连接和认证，成功时返回null，否则返回失败原因
+     */
+    private String probe(MilvusClient client) {
+        try {
+            R<Boolean> response = client.hasCollection(HasCollectionParam.newBuilder()
+                    .withCollectionName("test_connection")
+                    .build());
+            return response.getStatus() == R.Status.Success.getCode() ? null : response.getMessage();
+        } catch (Exception e) {
+            return e.getMessage();
+        }
+    }
+
+    private boolean isHealthy(MilvusClient client) {
+        try {
+            R<CheckHealthResponse> response = client.checkHealth();
+            return response.getStatus() == R.Status.Success.getCode() && response.getData().getIsHealthy();
+        } catch (Exception e) {
+            log.warn("Milvus健康检查失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 获取集群客户端并计入进行中的调用，取到的客户端恰好被退役时重新获取替换后的客户端
+     */
+    private Entry acquire(String clusterId) {
+        while (true) {
+            Entry entry = clients.get(clusterId);
+            if (entry == null) {
+                throw new IllegalArgumentException("未知的Milvus集群: " + clusterId);
+            }
+            entry.inFlight.incrementAndGet();
+            if (!entry.retired) {
+                entry.touch();
+                return entry;
+            }
+            entry.release();
+        }
+    }
+
+    private void retire(Entry entry) {
+        entry.retired = true;
+        entry.closeIfDrained();
+    }
+
+    private static void closeQuietly(Entry entry) {
+        if (!entry.closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            entry.client.close(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("关闭Milvus客户端失败: {}", e.getMessage());
+        }
+    }
+
+    private static String clusterId(String host, int port, String username, String database) {
+        String key = (username == null ? "" : username) + "@" + host + ":" + port + "/" + (database == null ? "" : database);
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString().replace("-", "").substring(0, 12);
+    }
+
+    private static final class Entry {
+        private final String id;
+        private final String host;
+        private final int port;
+        private final String username;
+        private final String password;
+        private final String database;
+        private final MilvusClient client;
+        private final boolean pinned;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean retired;
+        private volatile boolean healthy = true;
+        private volatile long lastUsedAt = System.currentTimeMillis();
+
+        private Entry(String id, String host, int port, String username, String password, String database,
+                      MilvusClient client, boolean pinned) {
+            this.id = id;
+            this.host = host;
+            this.port = port;
+            this.username = username;
+            this.password = password;
+            this.database = database;
+            this.client = client;
+            this.pinned = pinned;
+        }
+
+        private void touch() {
+            lastUsedAt = System.currentTimeMillis();
+        }
+
+        private void release() {
+            if (inFlight.decrementAndGet() == 0 && retired) {
+                closeIfDrained();
+            }
+        }
+
+        private void closeIfDrained() {
+            if (inFlight.get() == 0) {
+                log.info("关闭已退役的Milvus客户端: {}:{}", host, port);
+                closeQuietly(this);
+            }
+        }
+    }
+
+    /**
+     * 在客户端上执行的一次调用
+     */
+    @FunctionalInterface
+    public interface Invocation {
+        Object invoke(MilvusClient client) throws Throwable;
+    }
+}
@@ -1,12 +1,13 @@
 package com.ssssssss.milvus.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.milvus.client.MilvusClient;
-import io.milvus.client.MilvusServiceClient;
-import io.milvus.param.ConnectParam;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.lang.reflect.Proxy;
+
 /**
  * Milvus配置类，用于初始化和配置Milvus客户端
  *
@@ -27,17 +28,51 @@ public class MilvusConfig {
     @Value("${milvus.password:}")
     private String password;
 
+    @Value("${milvus.database:}")
+    private String database;
+
+    @Value("${milvus.registry.idle-timeout-seconds:600}")
+    private long idleTimeoutSeconds;
+
+    @Value("${milvus.registry.keep-alive-seconds:55}")
+    private long keepAliveSeconds;
+
+    @Value("${milvus.registry.health-check-seconds:30}")
+    private long healthCheckSeconds;
+
+    @Bean(destroyMethod = "close")
+    public MilvusClientRegistry milvusClientRegistry() {
+        MilvusClientRegistry registry = new MilvusClientRegistry(
+                idleTimeoutSeconds * 1000, keepAliveSeconds, healthCheckSeconds);
+        registry.registerDefault(host, port, username, password, database);
+        return registry;
+    }
+
     @Bean
-    public MilvusClient milvusClient() {
-        ConnectParam.Builder connectParamBuilder = ConnectParam.newBuilder()
-                .withHost(host)
-                .withPort(port);
-        
-        // 如果配置了用户名和密码，则添加认证信息
-        if (!username.isEmpty() && !password.isEmpty()) {
-            connectParamBuilder.withAuthorization(username,password);
-        }
-        
-        return new MilvusServiceClient(connectParamBuilder.build());
+    public MilvusRpcMetrics milvusRpcMetrics(MeterRegistry meterRegistry) {
+        return new MilvusRpcMetrics(meterRegistry);
+    }
+
+    /**
+     * 按当前请求的集群路由到注册表中的客户端并记录RPC耗时，客户端生命周期由注册表管理
+     */
+    @Bean(destroyMethod = "")
+    public MilvusClient milvusClient(MilvusClientRegistry registry, MilvusRpcMetrics metrics) {
+        return (MilvusClient) Proxy.newProxyInstance(
+                MilvusClient.class.getClassLoader(),
+                new Class<?>[]{MilvusClient.class},
+                (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (method.getName()) {
+                            case "equals" -> proxy == args[0];
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            default -> "MilvusClient(routing)";
+                        };
+                    }
+                    if (method.getName().equals("close")) {
+                        return null;
+                    }
+                    return registry.invoke(client -> metrics.invoke(client, method, args));
+                });
     }
 }
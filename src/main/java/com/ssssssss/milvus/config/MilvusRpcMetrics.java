@@ -0,0 +1,128 @@
+package com.ssssssss.milvus.config;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.milvus.param.R;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Milvus RPC耗时统计，按操作、集合和状态记录纳秒级直方图，状态为success、error或cancelled
+ *
+ * @author 冰点
+ */
+public class MilvusRpcMetrics {
+
+    public static final String METRIC_NAME = "milvus.rpc";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Class<?>, Optional<Method>> collectionAccessors = new ConcurrentHashMap<>();
+
+    public MilvusRpcMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 调用目标方法并记录耗时，异步方法在Future完成时记录
+     */
+    public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        String operation = method.getName();
+        String collection = collectionOf(args);
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            record(operation, collection, "error", System.nanoTime() - start);
+            throw e.getTargetException();
+        }
+
+        if (result instanceof ListenableFuture<?> future) {
+            future.addListener(() -> record(operation, collection, statusOf(future), System.nanoTime() - start),
+                    MoreExecutors.directExecutor());
+        } else {
+            record(operation, collection, statusOf(result), System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    private void record(String operation, String collection, String status, long nanos) {
+        Timer.builder(METRIC_NAME)
+                .description("Milvus RPC latency")
+                .tag("operation", operation)
+                .tag("collection", collection)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private String statusOf(Object result) {
+        if (result instanceof R<?> response) {
+            return response.getStatus() == R.Status.Success.getCode() ? "success" : "error";
+        }
+        return "success";
+    }
+
+    /**
+     * 异步调用的状态，超时后被{@link com.ssssssss.milvus.service.AsyncRpcService}取消的调用记为cancelled
+     */
+    private String statusOf(ListenableFuture<?> future) {
+        try {
+            return statusOf(future.get());
+        } catch (CancellationException e) {
+            return "cancelled";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "error";
+        } catch (ExecutionException e) {
+            return "error";
+        }
+    }
+
+    /**
+     * 从参数对象中读取集合名，没有集合参数的操作记为none
+     */
+    private String collectionOf(Object[] args) {
+        if (args == null || args.length == 0 || args[0] == null) {
+            return "none";
+        }
+        Object param = args[0];
+        Optional<Method> accessor = collectionAccessors.computeIfAbsent(param.getClass(), this::findAccessor);
+        if (accessor.isEmpty()) {
+            return "none";
+        }
+        try {
+            Object value = accessor.get().invoke(param);
+            if (value instanceof List<?> names) {
+                return names.size() == 1 ? String.valueOf(names.get(0)) : "multiple";
+            }
+            return value != null ? value.toString() : "none";
+        } catch (ReflectiveOperationException e) {
+            return "none";
+        }
+    }
+
+    private Optional<Method> findAccessor(Class<?> type) {
+        for (String name : new String[]{"getCollectionName", "getCollectionNames"}) {
+            try {
+                return Optional.of(type.getMethod(name));
+            } catch (NoSuchMethodException ignored) {
+                // 尝试下一个访问方法
+            }
+        }
+        return Optional.empty();
+    }
+}
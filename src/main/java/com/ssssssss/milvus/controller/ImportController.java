@@ -0,0 +1,89 @@
+package com.ssssssss.milvus.controller;
+
+import com.ssssssss.milvus.model.ImportRequest;
+import com.ssssssss.milvus.service.ImportService;
+import com.ssssssss.milvus.util.ResponseUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 导入任务控制器类，提交服务器本地文件的导入任务并查询进度
+ *
+ * @author 冰点
+ */
+@RestController
+@RequestMapping("/api/milvus/imports")
+@Slf4j
+public class ImportController {
+
+    @Autowired
+    private ImportService importService;
+
+    /**
+     * 创建导入任务
+     */
+    @PostMapping
+    public ResponseEntity<?> createImport(@RequestBody ImportRequest request) {
+        try {
+            if (request.getCollectionName() == null || request.getPath() == null) {
+                return ResponseUtil.error("collectionName和path不能为空");
+            }
+            return ResponseEntity.ok(importService.start(
+                    request.getCollectionName(), request.getPath(), request.getFormat(), request.getStartId()));
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(e.getMessage());
+        } catch (Exception e) {
+            log.error("创建导入任务失败", e);
+            return ResponseUtil.serverError("创建导入任务失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取导入任务列表
+     */
+    @GetMapping
+    public ResponseEntity<?> listImports() {
+        return ResponseEntity.ok(importService.list());
+    }
+
+    /**
+     * 获取导入任务状态
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getImport(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(importService.get(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    /**
+     * 从断点恢复导入任务
+     */
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<?> resumeImport(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(importService.resume(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseUtil.error(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    /**
+     * 取消导入任务
+     */
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<?> cancelImport(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(importService.cancel(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.ssssssss.milvus.controller;
+
+import com.ssssssss.milvus.config.ClusterContext;
+import com.ssssssss.milvus.model.AdminJob;
+import com.ssssssss.milvus.model.AdminJobRequest;
+import com.ssssssss.milvus.service.AdminJobService;
+import com.ssssssss.milvus.service.ClusterStatePoller;
+import com.ssssssss.milvus.service.SseBroadcaster;
+import com.ssssssss.milvus.util.ResponseUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 后台任务控制器类，提交加载、flush、压缩任务并通过SSE推送进度
+ *
+ * @author 冰点
+ */
+@RestController
+@RequestMapping("/api/milvus/jobs")
+@Slf4j
+public class JobController {
+
+    @Autowired
+    private AdminJobService adminJobService;
+
+    @Autowired
+    private SseBroadcaster broadcaster;
+
+    @Autowired
+    private ClusterStatePoller clusterStatePoller;
+
+    /**
+     * 提交后台任务，建索引任务由创建集合或重建索引接口发起
+     */
+    @PostMapping
+    public ResponseEntity<?> submitJob(@RequestBody AdminJobRequest request) {
+        if (request.getType() == null || request.getCollectionName() == null) {
+            return ResponseUtil.error("type和collectionName不能为空");
+        }
+        AdminJob job = switch (request.getType()) {
+            case LOAD -> adminJobService.load(request.getCollectionName());
+            case FLUSH -> adminJobService.flush(request.getCollectionName());
+            case COMPACTION -> adminJobService.compact(request.getCollectionName());
+            case INDEX -> null;
+        };
+        if (job == null) {
+            return ResponseUtil.error("建索引任务请通过创建集合或重建索引接口提交");
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    /**
+     * 获取任务列表
+     */
+    @GetMapping
+    public ResponseEntity<?> listJobs() {
+        return ResponseEntity.ok(adminJobService.list());
+    }
+
+    /**
+     * 获取任务状态
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getJob(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(adminJobService.get(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    /**
+     * 订阅任务进度和集合状态变化事件，订阅时先推送当前的集合快照，
+     * 浏览器EventSource无法设置请求头，需使用/api/clusters/{clusterId}/milvus前缀选择集群
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe() {
+        String clusterId = ClusterContext.current();
+        SseEmitter emitter = broadcaster.subscribe(clusterId);
+        clusterStatePoller.sendSnapshot(emitter, clusterId);
+        return emitter;
+    }
+}
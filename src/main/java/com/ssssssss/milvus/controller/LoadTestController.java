@@ -0,0 +1,73 @@
+package com.ssssssss.milvus.controller;
+
+import com.ssssssss.milvus.model.LoadTestRequest;
+import com.ssssssss.milvus.service.LoadTestService;
+import com.ssssssss.milvus.util.ResponseUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 压测控制器类，启动、查询和停止服务端压测，运行中的统计通过任务事件流推送
+ *
+ * @author 冰点
+ */
+@RestController
+@RequestMapping("/api/milvus/loadtests")
+@Slf4j
+public class LoadTestController {
+
+    @Autowired
+    private LoadTestService loadTestService;
+
+    /**
+     * 启动压测
+     */
+    @PostMapping
+    public ResponseEntity<?> startLoadTest(@RequestBody LoadTestRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(loadTestService.start(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseUtil.error(HttpStatus.CONFLICT, e.getMessage());
+        } catch (Exception e) {
+            log.error("启动压测失败", e);
+            return ResponseUtil.serverError("启动压测失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取压测记录
+     */
+    @GetMapping
+    public ResponseEntity<?> listLoadTests() {
+        return ResponseEntity.ok(loadTestService.list());
+    }
+
+    /**
+     * 获取压测状态
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getLoadTest(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(loadTestService.get(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    /**
+     * 立即停止压测
+     */
+    @PostMapping("/{id}/stop")
+    public ResponseEntity<?> stopLoadTest(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(loadTestService.stop(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+}
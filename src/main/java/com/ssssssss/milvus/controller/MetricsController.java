@@ -0,0 +1,77 @@
+package com.ssssssss.milvus.controller;
+
+import com.ssssssss.milvus.config.MilvusRpcMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指标控制器类，汇总Milvus RPC与HTTP接口的延迟分布供前端展示
+ *
+ * @author 冰点
+ */
+@RestController
+@RequestMapping("/api/milvus/metrics")
+public class MetricsController {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 获取延迟统计，rpc为Milvus调用耗时，http为本应用接口耗时
+     */
+    @GetMapping("/latency")
+    public ResponseEntity<?> getLatency() {
+        List<Map<String, Object>> rpc = new ArrayList<>();
+        for (Timer timer : meterRegistry.find(MilvusRpcMetrics.METRIC_NAME).timers()) {
+            Map<String, Object> row = summarize(timer);
+            row.put("operation", timer.getId().getTag("operation"));
+            row.put("collection", timer.getId().getTag("collection"));
+            row.put("status", timer.getId().getTag("status"));
+            rpc.add(row);
+        }
+
+        List<Map<String, Object>> http = new ArrayList<>();
+        for (Timer timer : meterRegistry.find("http.server.requests").timers()) {
+            String uri = timer.getId().getTag("uri");
+            if (uri == null || !uri.startsWith("/api/milvus") || uri.startsWith("/api/milvus/metrics")) {
+                continue;
+            }
+            Map<String, Object> row = summarize(timer);
+            row.put("method", timer.getId().getTag("method"));
+            row.put("uri", uri);
+            row.put("status", timer.getId().getTag("status"));
+            http.add(row);
+        }
+
+        Comparator<Map<String, Object>> byCount = Comparator.comparingLong(row -> -((Long) row.get("count")));
+        rpc.sort(byCount);
+        http.sort(byCount);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("rpc", rpc);
+        result.put("http", http);
+        return ResponseEntity.ok(result);
+    }
+
+    private Map<String, Object> summarize(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("count", snapshot.count());
+        row.put("meanMs", snapshot.mean(TimeUnit.MILLISECONDS));
+        row.put("maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            row.put("p" + Math.round(percentile.percentile() * 100) + "Ms", percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return row;
+    }
+}
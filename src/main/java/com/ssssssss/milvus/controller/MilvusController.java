@@ -1,27 +1,64 @@
 package com.ssssssss.milvus.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.ssssssss.milvus.config.ClusterContext;
+import com.ssssssss.milvus.config.MilvusClientRegistry;
+import com.ssssssss.milvus.model.AdminJob;
+import com.ssssssss.milvus.model.BenchmarkRequest;
+import com.ssssssss.milvus.model.BulkDeleteRequest;
+import com.ssssssss.milvus.model.BulkDeleteResult;
+import com.ssssssss.milvus.model.BulkInsertResult;
 import com.ssssssss.milvus.model.CollectionInfo;
+import com.ssssssss.milvus.model.CollectionSpec;
+import com.ssssssss.milvus.model.IndexSpec;
+import com.ssssssss.milvus.model.SearchRequest;
+import com.ssssssss.milvus.service.AdminJobService;
+import com.ssssssss.milvus.service.AsyncRpcService;
+import com.ssssssss.milvus.service.BenchmarkService;
+import com.ssssssss.milvus.service.BulkDeleteService;
+import com.ssssssss.milvus.service.BulkInsertService;
+import com.ssssssss.milvus.service.ClusterStatePoller;
+import com.ssssssss.milvus.service.CollectionMetadataService;
+import com.ssssssss.milvus.service.ExportService;
+import com.ssssssss.milvus.service.FlushScheduler;
+import com.ssssssss.milvus.service.IndexService;
 import com.ssssssss.milvus.service.MilvusService;
+import com.ssssssss.milvus.service.RowCountService;
+import com.ssssssss.milvus.service.SearchBatcher;
+import com.ssssssss.milvus.service.SearchCache;
+import com.ssssssss.milvus.service.SearchService;
 import com.ssssssss.milvus.util.ResponseUtil;
+import com.ssssssss.milvus.util.ResultJsonWriter;
+import com.ssssssss.milvus.util.VectorCodec;
 import io.milvus.client.MilvusClient;
-import io.milvus.client.MilvusServiceClient;
+import io.milvus.common.clientenum.ConsistencyLevelEnum;
 import io.milvus.grpc.*;
 import io.milvus.param.*;
 import io.milvus.param.collection.*;
 import io.milvus.param.dml.DeleteParam;
 import io.milvus.param.dml.InsertParam;
 import io.milvus.param.dml.QueryParam;
-import io.milvus.param.dml.SearchParam;
-import io.milvus.param.index.CreateIndexParam;
-import io.milvus.response.QueryResultsWrapper;
 import io.milvus.response.SearchResultsWrapper;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Milvus控制器类，提供操作Milvus数据库的REST API接口
@@ -36,41 +73,80 @@ public class MilvusController {
     @Autowired
     private MilvusClient milvusClient;
 
+    @Autowired
+    private MilvusClientRegistry clientRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Autowired
     private MilvusService milvusService;
 
+    @Autowired
+    private CollectionMetadataService collectionMetadataService;
+
+    @Autowired
+    private BulkInsertService bulkInsertService;
+
+    @Autowired
+    private RowCountService rowCountService;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private SearchCache searchCache;
+
+    @Autowired
+    private AsyncRpcService asyncRpcService;
+
+    @Autowired
+    private SearchBatcher searchBatcher;
+
+    @Autowired
+    private ClusterStatePoller clusterStatePoller;
+
+    @Value("${milvus.search.rerank-max-factor:20}")
+    private int maxRerankFactor;
+
+    @Autowired
+    private FlushScheduler flushScheduler;
+
+    @Autowired
+    private BulkDeleteService bulkDeleteService;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private AdminJobService adminJobService;
+
+    @Autowired
+    private IndexService indexService;
+
+    @Autowired
+    private BenchmarkService benchmarkService;
+
     /**
-     * 测试连接
+     * 连接集群，相同连接参数复用注册表中的客户端，返回集群ID供后续请求通过X-Milvus-Cluster请求头选择
      */
     @GetMapping("/connect")
     public ResponseEntity<?> connect(
             @RequestParam String host,
             @RequestParam int port,
             @RequestParam(required = false) String username,
-            @RequestParam(required = false) String password) {
+            @RequestParam(required = false) String password,
+            @RequestParam(required = false) String database) {
         try {
-            ConnectParam.Builder connectParamBuilder = ConnectParam.newBuilder()
-                    .withHost(host)
-                    .withPort(port);
-
-            if (username != null && password != null && !username.isEmpty() && !password.isEmpty()) {
-                connectParamBuilder.withAuthorization(username, password);
-            }
-
-            // 尝试创建临时客户端测试连接
-            MilvusClient testClient = new MilvusServiceClient(connectParamBuilder.build());
-
-            // 执行一个简单操作验证连接
-            R<Boolean> hasCollection = testClient.hasCollection(HasCollectionParam.newBuilder()
-                    .withCollectionName("test_connection")
-                    .build());
-
-            if (hasCollection.getStatus() == R.Status.Success.getCode()) {
-                return ResponseEntity.ok(Collections.singletonMap("message", "连接成功"));
-            } else {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(Collections.singletonMap("error", "连接失败: " + hasCollection.getMessage()));
-            }
+            // 注册时验证连接，失败时不会替换或移除已注册的客户端
+            String clusterId = clientRegistry.register(host, port, username, password, database);
+            Map<String, Object> result = new HashMap<>();
+            result.put("message", "连接成功");
+            result.put("clusterId", clusterId);
+            return ResponseEntity.ok(result);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Collections.singletonMap("error", "连接失败: " + e.getMessage()));
         } catch (Exception e) {
             log.error("连接失败", e);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -79,12 +155,33 @@ public class MilvusController {
     }
 
     /**
-     * 获取所有集合
+     * 获取已注册的集群
+     */
+    @GetMapping("/clusters")
+    public ResponseEntity<?> getClusters() {
+        return ResponseEntity.ok(clientRegistry.list());
+    }
+
+    /**
+     * 断开并关闭集群客户端
+     */
+    @DeleteMapping("/clusters/{clusterId}")
+    public ResponseEntity<?> removeCluster(@PathVariable String clusterId) {
+        if (!clientRegistry.remove(clusterId)) {
+            return ResponseUtil.error("集群不存在或不可移除: " + clusterId);
+        }
+        return ResponseUtil.success("集群已断开");
+    }
+
+    /**
+     * 获取所有集合，refresh为true时跳过快照强制重新拉取
      */
     @GetMapping("/collections")
-    public ResponseEntity<?> getCollections() {
+    public ResponseEntity<?> getCollections(@RequestParam(defaultValue = "false") boolean refresh) {
         try {
-            List<CollectionInfo> collections = milvusService.getAllCollections();
+            List<CollectionInfo> collections = refresh
+                    ? collectionMetadataService.refreshOverview()
+                    : milvusService.getAllCollections();
             List<Map<String, Object>> result = new ArrayList<>();
 
             for (CollectionInfo collection : collections) {
@@ -100,67 +197,190 @@ public class MilvusController {
     }
 
     /**
-     * 创建集合
+     * 创建集合，只包含id主键和向量字段
      */
     @PostMapping("/collections")
     public ResponseEntity<?> createCollection(
             @RequestParam String name,
             @RequestParam(required = false) String description,
-            @RequestParam int dimension) {
+            @RequestParam int dimension,
+            @RequestParam(defaultValue = "IVF_FLAT") String indexType,
+            @RequestParam(defaultValue = "L2") String metricType,
+            @RequestParam(required = false) String indexParams,
+            @RequestParam(required = false) Long expectedRows) {
+        try {
+            CollectionSpec spec = new CollectionSpec();
+            spec.setName(name);
+            spec.setDescription(description);
+            spec.setDimension(dimension);
+            spec.setIndexType(indexType);
+            spec.setMetricType(metricType);
+            spec.setIndexParams(indexService.parseParams(indexParams));
+            spec.setExpectedRows(expectedRows);
+            return createCollection(spec);
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 按结构定义创建集合，支持标量字段、VarChar主键和分区键
+     */
+    @PostMapping(value = "/collections", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> createCollection(@RequestBody CollectionSpec spec) {
         try {
+            if (spec.getName() == null || spec.getName().isBlank()) {
+                return ResponseUtil.error("集合名称不能为空");
+            }
+            IndexSpec indexSpec = new IndexSpec();
+            indexSpec.setIndexType(spec.getIndexType());
+            indexSpec.setMetricType(spec.getMetricType());
+            indexSpec.setParams(spec.getIndexParams());
+            indexSpec.setExpectedRows(spec.getExpectedRows());
+            // 新集合建好索引后不自动加载，由用户按需加载，避免每次建集合都占用查询节点内存
+            indexSpec.setReload(false);
+            indexService.validate(indexSpec, spec.getDimension());
+
             // 检查集合是否已存在
-            if (milvusService.collectionExists(name)) {
+            if (milvusService.collectionExists(spec.getName())) {
                 return ResponseUtil.error("集合已存在");
             }
 
-            // 创建ID字段
-            FieldType idField = FieldType.newBuilder()
-                    .withName("id")
-                    .withDataType(DataType.Int64)
-                    .withPrimaryKey(true)
-                    .withAutoID(false)
-                    .build();
-
-            // 创建向量字段
-            FieldType vectorField = FieldType.newBuilder()
-                    .withName("vector")
-                    .withDataType(DataType.FloatVector)
-                    .withDimension(dimension)
-                    .build();
-
-            // 创建集合
-            CreateCollectionParam createParam = CreateCollectionParam.newBuilder()
-                    .withCollectionName(name)
-                    .withDescription(description != null ? description : "")
-                    .addFieldType(idField)
-                    .addFieldType(vectorField)
-                    .withShardsNum(2)
-                    .build();
+            CreateCollectionParam.Builder createParam = CreateCollectionParam.newBuilder()
+                    .withCollectionName(spec.getName())
+                    .withDescription(spec.getDescription() != null ? spec.getDescription() : "")
+                    .withFieldTypes(buildFieldTypes(spec))
+                    .withShardsNum(spec.getShardsNum())
+                    .withEnableDynamicField(spec.isEnableDynamicField());
+            if (spec.getNumPartitions() != null) {
+                createParam.withPartitionsNum(spec.getNumPartitions());
+            }
 
-            R<RpcStatus> createResult = milvusClient.createCollection(createParam);
+            R<RpcStatus> createResult = milvusClient.createCollection(createParam.build());
 
             if (createResult.getStatus() != R.Status.Success.getCode()) {
                 return ResponseUtil.error(createResult.getMessage());
             }
+            collectionMetadataService.invalidate(spec.getName());
+            rowCountService.invalidate(spec.getName());
+            searchCache.invalidate(spec.getName());
 
-            // 创建索引
-            CreateIndexParam indexParam = CreateIndexParam.newBuilder()
-                    .withCollectionName(name)
-                    .withFieldName("vector")
-                    .withIndexType(IndexType.IVF_FLAT)
-                    .withMetricType(MetricType.L2)
-                    .withExtraParam("{\"nlist\": 1024}")
-                    .build();
-
-            milvusClient.createIndex(indexParam);
+            // 后台创建索引，进度通过任务事件推送
+            AdminJob indexJob = indexService.create(spec.getName(), indexSpec, spec.getDimension());
 
-            return ResponseUtil.success("集合创建成功");
+            return ResponseUtil.success("集合创建成功", Collections.singletonMap("jobId", indexJob.getId()));
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(e.getMessage());
         } catch (Exception e) {
             log.error("创建集合失败", e);
             return ResponseUtil.serverError("创建集合失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 获取集合结构，包含字段类型、主键、分区键和向量维度
+     */
+    @GetMapping("/collections/{name}/schema")
+    public ResponseEntity<?> getSchema(@PathVariable String name) {
+        CollectionSchema schema = collectionMetadataService.getSchema(name);
+        if (schema == null) {
+            return ResponseUtil.error(HttpStatus.NOT_FOUND, "集合不存在: " + name);
+        }
+        List<Map<String, Object>> fields = new ArrayList<>(schema.getFieldsCount());
+        for (FieldSchema field : schema.getFieldsList()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("name", field.getName());
+            row.put("dataType", field.getDataType().name());
+            if (field.getDataType() == DataType.Array) {
+                row.put("elementType", field.getElementType().name());
+            }
+            row.put("primaryKey", field.getIsPrimaryKey());
+            row.put("autoId", field.getAutoID());
+            row.put("partitionKey", field.getIsPartitionKey());
+            for (KeyValuePair param : field.getTypeParamsList()) {
+                row.put(param.getKey(), param.getValue());
+            }
+            row.put("description", field.getDescription());
+            fields.add(row);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("name", schema.getName());
+        result.put("description", schema.getDescription());
+        result.put("enableDynamicField", schema.getEnableDynamicField());
+        result.put("fields", fields);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 按结构定义构建字段列表：主键、向量字段及标量字段
+     */
+    private List<FieldType> buildFieldTypes(CollectionSpec spec) {
+        List<FieldType> fieldTypes = new ArrayList<>(spec.getFields().size() + 2);
+        DataType primaryType = parseDataType(spec.getPrimaryType());
+        if (primaryType != DataType.Int64 && primaryType != DataType.VarChar) {
+            throw new IllegalArgumentException("主键类型必须为Int64或VarChar");
+        }
+        FieldType.Builder primary = FieldType.newBuilder()
+                .withName(spec.getPrimaryField())
+                .withDataType(primaryType)
+                .withPrimaryKey(true)
+                .withAutoID(spec.isAutoId());
+        if (primaryType == DataType.VarChar) {
+            primary.withMaxLength(spec.getPrimaryMaxLength() != null ? spec.getPrimaryMaxLength() : 256);
+        }
+        fieldTypes.add(primary.build());
+
+        fieldTypes.add(FieldType.newBuilder()
+                .withName(spec.getVectorField())
+                .withDataType(DataType.FloatVector)
+                .withDimension(spec.getDimension())
+                .build());
+
+        int partitionKeys = 0;
+        for (CollectionSpec.Field field : spec.getFields()) {
+            if (field.getName() == null || field.getName().isBlank()) {
+                throw new IllegalArgumentException("字段名不能为空");
+            }
+            DataType dataType = parseDataType(field.getDataType());
+            if (dataType == DataType.FloatVector || dataType == DataType.BinaryVector) {
+                throw new IllegalArgumentException("仅支持一个向量字段: " + field.getName());
+            }
+            FieldType.Builder builder = FieldType.newBuilder()
+                    .withName(field.getName())
+                    .withDataType(dataType)
+                    .withPartitionKey(field.isPartitionKey())
+                    .withDescription(field.getDescription() != null ? field.getDescription() : "");
+            if (field.getMaxLength() != null) {
+                builder.withMaxLength(field.getMaxLength());
+            } else if (dataType == DataType.VarChar) {
+                builder.withMaxLength(256);
+            }
+            if (dataType == DataType.Array) {
+                builder.withElementType(parseDataType(field.getElementType()));
+                builder.withMaxCapacity(field.getMaxCapacity() != null ? field.getMaxCapacity() : 64);
+            }
+            if (field.isPartitionKey()) {
+                partitionKeys++;
+            }
+            fieldTypes.add(builder.build());
+        }
+        if (partitionKeys > 1) {
+            throw new IllegalArgumentException("最多只能有一个分区键字段");
+        }
+        return fieldTypes;
+    }
+
+    private DataType parseDataType(String dataType) {
+        if (dataType != null) {
+            for (DataType type : DataType.values()) {
+                if (type != DataType.UNRECOGNIZED && type.name().equalsIgnoreCase(dataType)) {
+                    return type;
+                }
+            }
+        }
+        throw new IllegalArgumentException("不支持的字段类型: " + dataType);
+    }
+
     /**
      * 删除集合
      */
@@ -177,6 +397,11 @@ public class MilvusController {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                         .body(Collections.singletonMap("error", response.getMessage()));
             }
+            collectionMetadataService.invalidate(name);
+            rowCountService.invalidate(name);
+            searchCache.invalidate(name);
+            flushScheduler.discard(name);
+            benchmarkService.invalidate(name);
 
             return ResponseEntity.ok(Collections.singletonMap("message", "集合删除成功"));
         } catch (Exception e) {
@@ -187,23 +412,64 @@ public class MilvusController {
     }
 
     /**
-     * 加载集合
+     * 获取集合的索引及构建记录
      */
-    @PostMapping("/collections/{name}/load")
-    public ResponseEntity<?> loadCollection(@PathVariable String name) {
+    @GetMapping("/collections/{name}/index")
+    public ResponseEntity<?> getIndex(@PathVariable String name) {
         try {
-            LoadCollectionParam param = LoadCollectionParam.newBuilder()
-                    .withCollectionName(name)
-                    .build();
+            Map<String, Object> result = new HashMap<>();
+            result.put("indexes", indexService.describeAsMap(name));
+            result.put("builds", indexService.getRecords(name));
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            log.error("获取索引信息失败", e);
+            return ResponseUtil.serverError("获取索引信息失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 删除并按新配置重建索引
+     */
+    @PostMapping("/collections/{name}/index")
+    public ResponseEntity<?> rebuildIndex(@PathVariable String name, @RequestBody IndexSpec spec) {
+        try {
+            AdminJob job = indexService.rebuild(name, spec);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(e.getMessage());
+        } catch (Exception e) {
+            log.error("重建索引失败", e);
+            return ResponseUtil.serverError("重建索引失败: " + e.getMessage());
+        }
+    }
 
-            R<RpcStatus> response = milvusClient.loadCollection(param);
+    /**
+     * 获取各索引类型的预设参数和内存估算
+     */
+    @GetMapping("/indexes/presets")
+    public ResponseEntity<?> getIndexPresets(
+            @RequestParam int dimension,
+            @RequestParam(defaultValue = "0") long rows) {
+        return ResponseEntity.ok(indexService.presets(dimension, rows));
+    }
 
-            if (response.getStatus() != R.Status.Success.getCode()) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(Collections.singletonMap("error", response.getMessage()));
-            }
+    /**
+     * 获取当前集群所有索引构建记录
+     */
+    @GetMapping("/indexes/builds")
+    public ResponseEntity<?> getIndexBuilds() {
+        return ResponseEntity.ok(indexService.getRecords(null));
+    }
 
-            return ResponseEntity.ok(Collections.singletonMap("message", "集合加载成功"));
+    /**
+     * 加载集合
+     */
+    @PostMapping("/collections/{name}/load")
+    public ResponseEntity<?> loadCollection(@PathVariable String name) {
+        try {
+            // 后台加载并轮询进度，完成后通过任务事件通知
+            AdminJob job = adminJobService.load(name);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
         } catch (Exception e) {
             log.error("加载集合失败", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -215,108 +481,314 @@ public class MilvusController {
      * 插入数据
      */
     @PostMapping("/collections/{name}/data")
-    public ResponseEntity<?> insertData(
+    public CompletableFuture<ResponseEntity<?>> insertData(
             @PathVariable String name,
-            @RequestParam Long id,
+            @RequestParam(required = false) String id,
             @RequestBody List<Float> vector) {
         try {
-            List<Long> ids = Collections.singletonList(id);
-            List<List<Float>> vectors = Collections.singletonList(vector);
-
-            // 创建字段列表
-            List<InsertParam.Field> fields = new ArrayList<>();
-            fields.add(new InsertParam.Field("id", ids));
-            fields.add(new InsertParam.Field("vector", vectors));
+            // autoId集合由Milvus生成主键，不发送主键列
+            CollectionMetadataService.KeyFields keys = collectionMetadataService.getKeyFields(name);
+            if (!keys.autoId() && id == null) {
+                return CompletableFuture.completedFuture(ResponseUtil.error("id不能为空"));
+            }
+            List<Object> ids = keys.autoId() ? null : Collections.singletonList(keys.parseKey(id));
+            List<InsertParam.Field> fields = keys.insertFields(ids, Collections.singletonList(vector));
 
             InsertParam insertParam = InsertParam.newBuilder()
                     .withCollectionName(name)
                     .withFields(fields)
                     .build();
 
-            R<MutationResult> response = milvusClient.insert(insertParam);
+            return async(() -> milvusClient.insertAsync(insertParam), response -> {
+                if (response.getStatus() != R.Status.Success.getCode()) {
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                            .body(Collections.singletonMap("error", response.getMessage()));
+                }
+                rowCountService.adjust(name, response.getData().getInsertCnt());
+                searchCache.invalidate(name);
 
-            if (response.getStatus() != R.Status.Success.getCode()) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(Collections.singletonMap("error", response.getMessage()));
+                // 由调度器合并flush，需要立即可见时使用Strong一致性查询
+                flushScheduler.recordMutation(name, response.getData().getInsertCnt());
+
+                return ResponseEntity.ok(Collections.singletonMap("message", "数据插入成功"));
+            }, "插入数据失败");
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseUtil.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("插入数据失败", e);
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Collections.singletonMap("error", "插入数据失败: " + e.getMessage())));
+        }
+    }
+
+    /**
+     * 插入二进制向量数据，请求体为小端float32，多条向量时id依次递增
+     */
+    @PostMapping(value = "/collections/{name}/data", consumes = VectorCodec.MEDIA_TYPE)
+    public CompletableFuture<ResponseEntity<?>> insertBinaryData(
+            @PathVariable String name,
+            @RequestParam(required = false) Long id,
+            HttpServletRequest request) {
+        try {
+            CollectionMetadataService.KeyFields keys = collectionMetadataService.getKeyFields(name);
+            if (!keys.autoId() && (keys.stringKey() || id == null)) {
+                // 主键按id递增生成，VarChar主键只能由autoId生成
+                return CompletableFuture.completedFuture(ResponseUtil.error(keys.stringKey()
+                        ? "二进制插入只支持Int64主键或autoId集合" : "id不能为空"));
+            }
+            float[][] vectors = VectorCodec.decode(request.getInputStream().readAllBytes(), getVectorDimension(name));
+
+            List<Long> ids = null;
+            if (!keys.autoId()) {
+                ids = new ArrayList<>(vectors.length);
+                for (int i = 0; i < vectors.length; i++) {
+                    ids.add(id + i);
+                }
             }
+            List<InsertParam.Field> fields = keys.insertFields(ids, VectorCodec.asLists(vectors));
 
-            // 刷新集合使数据可见
-            FlushParam flushParam = FlushParam.newBuilder()
-                    .addCollectionName(name)
+            InsertParam insertParam = InsertParam.newBuilder()
+                    .withCollectionName(name)
+                    .withFields(fields)
                     .build();
-            milvusClient.flush(flushParam);
 
-            return ResponseEntity.ok(Collections.singletonMap("message", "数据插入成功"));
+            return async(() -> milvusClient.insertAsync(insertParam), response -> {
+                if (response.getStatus() != R.Status.Success.getCode()) {
+                    return ResponseUtil.error(response.getMessage());
+                }
+                rowCountService.adjust(name, response.getData().getInsertCnt());
+                searchCache.invalidate(name);
+
+                // 由调度器合并flush，需要立即可见时使用Strong一致性查询
+                flushScheduler.recordMutation(name, response.getData().getInsertCnt());
+
+                return ResponseUtil.success("数据插入成功", Collections.singletonMap("count", vectors.length));
+            }, "插入数据失败");
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseUtil.error(e.getMessage()));
         } catch (Exception e) {
             log.error("插入数据失败", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Collections.singletonMap("error", "插入数据失败: " + e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseUtil.serverError("插入数据失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 批量插入数据，请求体为JSON数组或NDJSON，每行格式为 {"id": 1, "vector": [...]}，字段名与集合结构一致
+     */
+    @PostMapping(value = "/collections/{name}/data/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> bulkInsertData(
+            @PathVariable String name,
+            @RequestParam(defaultValue = "0") int batchSize,
+            @RequestParam(defaultValue = "true") boolean flush,
+            HttpServletRequest request) {
+        CollectionMetadataService.KeyFields keys;
+        try {
+            keys = collectionMetadataService.getKeyFields(name);
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(e.getMessage());
+        }
+        try {
+            BulkInsertResult result = bulkInsertService.ingest(name, keys, request.getInputStream(), batchSize, flush);
+            rowCountService.adjust(name, result.getInsertedRows());
+            searchCache.invalidate(name);
+            if (!flush) {
+                flushScheduler.recordMutation(name, result.getInsertedRows());
+            }
+            if (result.getError() != null) {
+                // 解析中断，返回已写入部分的结果
+                return ResponseEntity.badRequest().body(result);
+            }
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            rowCountService.invalidate(name);
+            searchCache.invalidate(name);
+            log.error("批量插入数据失败", e);
+            return ResponseUtil.serverError("批量插入数据失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 批量删除数据，按id列表分片删除或按过滤表达式删除，结束后统一flush一次
+     */
+    @PostMapping("/collections/{name}/data/delete")
+    public ResponseEntity<?> bulkDeleteData(
+            @PathVariable String name,
+            @RequestBody BulkDeleteRequest request) {
+        try {
+            BulkDeleteResult result = bulkDeleteService.delete(name, request);
+            rowCountService.adjust(name, -result.getDeletedRows());
+            searchCache.invalidate(name);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseUtil.error(HttpStatus.CONFLICT, e.getMessage());
+        } catch (Exception e) {
+            rowCountService.invalidate(name);
+            searchCache.invalidate(name);
+            log.error("批量删除数据失败", e);
+            return ResponseUtil.serverError("批量删除数据失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取正在执行的批量删除进度
+     */
+    @GetMapping("/collections/{name}/data/delete")
+    public ResponseEntity<?> getBulkDeleteProgress(@PathVariable String name) {
+        BulkDeleteResult progress = bulkDeleteService.getProgress(name);
+        if (progress == null) {
+            return ResponseUtil.error(HttpStatus.NOT_FOUND, "没有正在执行的批量删除");
+        }
+        return ResponseEntity.ok(progress);
+    }
+
     /**
      * 获取集合数据
+     *
+     * <p>默认使用主键游标分页：按上一页最后一个id构造 id > cursor 表达式，返回不透明的nextCursor；
+     * 仅传page时保留旧的offset分页方式。</p>
      */
     @GetMapping("/collections/{name}/data")
-    public ResponseEntity<?> getCollectionData(
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getCollectionData(
             @PathVariable String name,
-            @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int pageSize) {
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int pageSize,
+            @RequestParam(defaultValue = "true") boolean includeVectors,
+            @RequestParam(defaultValue = "false") boolean exactCount,
+            @RequestParam(required = false) String consistencyLevel,
+            @RequestParam(defaultValue = "-1") int precision,
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) List<String> partitionNames) {
         try {
-            // 使用查询表达式获取数据，避免全表扫描
-            String expr = "id >= 0"; // 查询所有ID大于等于0的记录
-            List<String> outputFields = Arrays.asList("id", "vector");
+            ResultJsonWriter.Format format = new ResultJsonWriter.Format(includeVectors, false, precision);
+            boolean offsetMode = page != null && cursor == null;
+            // 主键和输出字段从缓存的集合结构解析
+            CollectionMetadataService.KeyFields keys = collectionMetadataService.getKeyFields(name);
+            String primaryName = keys.primaryName();
+            boolean stringKey = keys.stringKey();
+            String expr = offsetMode ? keys.allExpr() : keys.afterExpr(decodeCursor(cursor, stringKey));
+            boolean filtered = filter != null && !filter.isBlank();
+            if (filtered) {
+                expr = "(" + filter + ") and " + expr;
+            }
+            List<String> outputFields = collectionMetadataService.getFieldNames(name, includeVectors);
 
             // 使用query接口而不是search接口来获取数据
-            QueryParam queryParam = QueryParam.newBuilder()
+            QueryParam.Builder queryBuilder = QueryParam.newBuilder()
                     .withCollectionName(name)
                     .withExpr(expr)
                     .withOutFields(outputFields)
-                    .withLimit((long) pageSize)
-                    .withOffset((long) ((page - 1) * pageSize))
-                    .build();
-
-            R<QueryResults> response = milvusClient.query(queryParam);
-
-            if (response.getStatus() != R.Status.Success.getCode()) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(Collections.singletonMap("error", response.getMessage()));
+                    .withLimit((long) pageSize);
+            if (partitionNames != null && !partitionNames.isEmpty()) {
+                queryBuilder.withPartitionNames(partitionNames);
             }
-
-            QueryResultsWrapper wrapper = new QueryResultsWrapper(response.getData());
-            List<Map<String, Object>> data = new ArrayList<>();
-
-            for (int i = 0; i < wrapper.getRowCount(); i++) {
-                Map<String, Object> row = new HashMap<>();
-                row.put("id", wrapper.getFieldWrapper("id").get(i, "id"));
-                row.put("vector", wrapper.getFieldWrapper("vector").get(i, "vector"));
-                data.add(row);
+            if (consistencyLevel != null) {
+                queryBuilder.withConsistencyLevel(parseConsistencyLevel(consistencyLevel));
+            }
+            if (offsetMode) {
+                queryBuilder.withOffset((long) ((page - 1) * pageSize));
             }
 
-            // 获取总数
-            GetCollectionStatisticsParam statsParam = GetCollectionStatisticsParam.newBuilder()
-                    .withCollectionName(name)
-                    .build();
-            R<GetCollectionStatisticsResponse> statsResponse = milvusClient.getCollectionStatistics(statsParam);
+            QueryParam queryParam = queryBuilder.build();
+            // 总数与数据查询同时发出，默认使用缓存的row_count，exactCount为true时执行count(*)查询；
+            // 两者都完成后再写出响应，回调中不再发起阻塞调用
+            CompletableFuture<Long> totalFuture = exactCount
+                    ? rowCountService.getExactRowCountAsync(name) : rowCountService.getRowCountAsync(name);
+            return asyncRpcService.call(() -> milvusClient.queryAsync(queryParam), response -> response)
+                    .<Long, ResponseEntity<StreamingResponseBody>>thenCombine(totalFuture, (response, total) -> {
+                        if (response.getStatus() != R.Status.Success.getCode()) {
+                            return streamError(HttpStatus.BAD_REQUEST, response.getMessage());
+                        }
 
-            long total = 0;
-            if (statsResponse.getStatus() == R.Status.Success.getCode()) {
-                total = Long.parseLong(String.valueOf(statsResponse.getData().getStatsCount()));
-            }
+                        QueryResults results = response.getData();
+                        int rows = 0;
+                        long maxId = Long.MIN_VALUE;
+                        String maxKey = null;
+                        for (FieldData field : results.getFieldsDataList()) {
+                            if (primaryName.equals(field.getFieldName())) {
+                                if (stringKey) {
+                                    StringArray stringIds = field.getScalars().getStringData();
+                                    rows = stringIds.getDataCount();
+                                    for (int i = 0; i < rows; i++) {
+                                        String key = stringIds.getData(i);
+                                        maxKey = maxKey == null || key.compareTo(maxKey) > 0 ? key : maxKey;
+                                    }
+                                } else {
+                                    LongArray ids = field.getScalars().getLongData();
+                                    rows = ids.getDataCount();
+                                    for (int i = 0; i < rows; i++) {
+                                        maxId = Math.max(maxId, ids.getData(i));
+                                    }
+                                }
+                            }
+                        }
 
-            Map<String, Object> result = new HashMap<>();
-            result.put("data", data);
-            result.put("total", total);
-            result.put("page", page);
-            result.put("pageSize", pageSize);
-            result.put("hasMore", page * pageSize < total);
+                        // 带过滤条件时total仍为集合总行数，是否还有下一页按本页是否取满判断
+                        boolean hasMore = offsetMode && !filtered ? page * pageSize < total : rows >= pageSize;
+                        String nextCursor = !offsetMode && hasMore
+                                ? (stringKey ? encodeCursor(maxKey) : encodeCursor(String.valueOf(maxId))) : null;
 
-            return ResponseEntity.ok(result);
+                        // 行数据直接从protobuf写出，不构建逐行Map
+                        return ResultJsonWriter.ok(objectMapper.getFactory(), generator -> {
+                            generator.writeStartObject();
+                            generator.writeFieldName("data");
+                            ResultJsonWriter.writeQueryRows(generator, results, primaryName, format);
+                            generator.writeNumberField("total", total);
+                            generator.writeNumberField("pageSize", pageSize);
+                            if (offsetMode) {
+                                generator.writeNumberField("page", page);
+                            } else {
+                                generator.writeStringField("cursor", cursor);
+                                generator.writeStringField("nextCursor", nextCursor);
+                            }
+                            generator.writeBooleanField("hasMore", hasMore);
+                            generator.writeEndObject();
+                        });
+                    }).exceptionally(e -> asyncStreamError(e, "获取集合数据失败"));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(streamError(HttpStatus.BAD_REQUEST, e.getMessage()));
         } catch (Exception e) {
             log.error("获取集合数据失败", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Collections.singletonMap("error", "获取集合数据失败: " + e.getMessage()));
+            return CompletableFuture.completedFuture(
+                    streamError(HttpStatus.INTERNAL_SERVER_ERROR, "获取集合数据失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 流式导出集合数据，format为ndjson或binary
+     */
+    @GetMapping("/collections/{name}/export")
+    public ResponseEntity<StreamingResponseBody> exportCollection(
+            @PathVariable String name,
+            @RequestParam(defaultValue = ExportService.FORMAT_NDJSON) String format,
+            @RequestParam(defaultValue = "0") int batchSize,
+            @RequestParam(defaultValue = "true") boolean includeVectors) {
+        boolean binary = ExportService.FORMAT_BINARY.equals(format);
+        if (!binary && !ExportService.FORMAT_NDJSON.equals(format)) {
+            return streamError(HttpStatus.BAD_REQUEST, "不支持的导出格式: " + format);
+        }
+        // 开始写出后无法再返回错误状态，集合不存在或结构不受支持时在这里拒绝
+        CollectionMetadataService.KeyFields keys;
+        try {
+            keys = collectionMetadataService.getKeyFields(name);
+        } catch (IllegalArgumentException e) {
+            return streamError(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (binary && keys.stringKey()) {
+            return streamError(HttpStatus.BAD_REQUEST, "二进制导出只支持Int64主键，请使用ndjson格式");
         }
+        // 响应体在异步线程上写出，需要带上当前集群
+        String clusterId = ClusterContext.current();
+        StreamingResponseBody body = out ->
+                exportService.export(clusterId, name, keys, format, batchSize, includeVectors, out);
+        return ResponseEntity.ok()
+                .contentType(binary ? MediaType.APPLICATION_OCTET_STREAM : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + name + (binary ? ".bin" : ".ndjson") + "\"")
+                .body(body);
     }
 
     /**
@@ -325,12 +797,13 @@ public class MilvusController {
     @DeleteMapping("/collections/{name}/data/{id}")
     public ResponseEntity<?> deleteData(
             @PathVariable String name,
-            @PathVariable Long id) {
+            @PathVariable String id) {
         try {
+            CollectionMetadataService.KeyFields keys = collectionMetadataService.getKeyFields(name);
             // Milvus中删除数据需要使用delete接口
             DeleteParam deleteParam = DeleteParam.newBuilder()
                     .withCollectionName(name)
-                    .withExpr("id == " + id)
+                    .withExpr(keys.equalsExpr(keys.parseKey(id)))
                     .build();
 
             R<MutationResult> response = milvusClient.delete(deleteParam);
@@ -339,14 +812,15 @@ public class MilvusController {
                 return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                         .body(Collections.singletonMap("error", response.getMessage()));
             }
+            rowCountService.adjust(name, -response.getData().getDeleteCnt());
+            searchCache.invalidate(name);
 
-            // 刷新集合使删除生效
-            FlushParam flushParam = FlushParam.newBuilder()
-                    .addCollectionName(name)
-                    .build();
-            milvusClient.flush(flushParam);
+            // 由调度器合并flush，需要立即可见时使用Strong一致性查询
+            flushScheduler.recordMutation(name, response.getData().getDeleteCnt());
 
             return ResponseEntity.ok(Collections.singletonMap("message", "数据删除成功"));
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(e.getMessage());
         } catch (Exception e) {
             log.error("删除数据失败", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -358,54 +832,376 @@ public class MilvusController {
      * 搜索向量
      */
     @PostMapping("/collections/{name}/search")
-    public ResponseEntity<?> searchVector(
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> searchVector(
             @PathVariable String name,
             @RequestBody List<Float> vector,
-            @RequestParam(defaultValue = "10") int topK) {
+            @RequestParam(defaultValue = "10") int topK,
+            @RequestParam(defaultValue = "L2") String metricType,
+            @RequestParam(required = false) Integer nprobe,
+            @RequestParam(required = false) Integer ef,
+            @RequestParam(required = false) List<String> outputFields,
+            @RequestParam(required = false) String consistencyLevel,
+            @RequestParam(defaultValue = "true") boolean includeVectors,
+            @RequestParam(defaultValue = "false") boolean idsOnly,
+            @RequestParam(defaultValue = "-1") int precision,
+            @RequestParam(required = false) Boolean cache,
+            @RequestParam(required = false) String expr,
+            @RequestParam(required = false) List<String> partitionNames,
+            @RequestParam(defaultValue = "1") int rerankFactor,
+            @RequestParam(required = false) Boolean batch) {
         try {
-            long startTime = System.currentTimeMillis();
+            if (rerankFactor < 1 || rerankFactor > maxRerankFactor) {
+                return CompletableFuture.completedFuture(
+                        streamError(HttpStatus.BAD_REQUEST, "rerankFactor必须在1到" + maxRerankFactor + "之间"));
+            }
+            // 默认只返回向量字段，字段名取自集合结构
+            String vectorField = collectionMetadataService.getVectorFieldName(name);
+            if (outputFields == null) {
+                outputFields = Collections.singletonList(vectorField);
+            }
+            if (!includeVectors || idsOnly) {
+                // 不需要的字段不从Milvus取回
+                outputFields = idsOnly ? Collections.emptyList()
+                        : outputFields.stream().filter(field -> !vectorField.equals(field)).toList();
+            }
+            ResultJsonWriter.Format format = new ResultJsonWriter.Format(
+                    outputFields.contains(vectorField), idsOnly, precision);
 
-            SearchParam searchParam = SearchParam.newBuilder()
-                    .withCollectionName(name)
-                    .withMetricType(MetricType.L2)
-                    .withOutFields(Collections.singletonList("id"))
-                    .withTopK(topK)
-                    .withVectors(Collections.singletonList(vector))
-                    .withVectorFieldName("vector")
-                    .withParams("{\"nprobe\": 10}")
-                    .build();
+            // 重排时多取topK×rerankFactor个候选并带回向量，在本地按精确距离取前topK个
+            boolean rerank = rerankFactor > 1;
+            List<String> fetchFields = outputFields;
+            if (rerank && !fetchFields.contains(vectorField)) {
+                fetchFields = new ArrayList<>(fetchFields);
+                fetchFields.add(vectorField);
+            }
+            SearchRequest searchRequest = buildSearchRequest(rerank ? topK * rerankFactor : topK, metricType,
+                    nprobe, ef, fetchFields);
+            searchRequest.setConsistencyLevel(consistencyLevel);
+            // 按分区键过滤或指定分区时，Milvus只搜索相关分区
+            searchRequest.setExpr(expr);
+            searchRequest.setPartitionNames(partitionNames);
+            // 强一致读要求看到最新写入，不走缓存
+            boolean useCache = (cache != null ? cache : searchCache.isEnabled())
+                    && !"STRONG".equalsIgnoreCase(consistencyLevel);
+            SearchCache.Key cacheKey = useCache ? searchCache.key(name, vector, searchRequest) : null;
+            long startTime = System.nanoTime();
+            SearchResultData cached = cacheKey != null ? searchCache.get(cacheKey) : null;
+            if (cached != null) {
+                SearchService.Reranked reranked = rerank ? searchService.rerank(cached, vector, metricType, topK) : null;
+                return CompletableFuture.completedFuture(searchResponse(cached, reranked, format, startTime, true));
+            }
 
-            R<SearchResults> response = milvusClient.search(searchParam);
+            Function<R<SearchResults>, ResponseEntity<StreamingResponseBody>> then = response -> {
+                if (response.getStatus() != R.Status.Success.getCode()) {
+                    return streamError(HttpStatus.BAD_REQUEST, response.getMessage());
+                }
+                SearchResultData results = response.getData().getResults();
+                if (cacheKey != null) {
+                    searchCache.put(cacheKey, results);
+                }
+                SearchService.Reranked reranked = rerank
+                        ? searchService.rerank(results, vector, metricType, topK) : null;
+                return searchResponse(results, reranked, format, startTime, false);
+            };
+            // 并发的相同参数单条搜索在短时间窗口内合并为一次多向量搜索
+            if (batch != null ? batch : searchBatcher.isEnabled()) {
+                return searchBatcher.submit(name, vector, searchRequest).thenApply(then)
+                        .exceptionally(e -> asyncStreamError(e, "搜索向量失败"));
+            }
+            return asyncRpcService.call(
+                            () -> searchService.searchAsync(name, Collections.singletonList(vector), searchRequest), then)
+                    .exceptionally(e -> asyncStreamError(e, "搜索向量失败"));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(streamError(HttpStatus.BAD_REQUEST, e.getMessage()));
+        } catch (Exception e) {
+            log.error("搜索向量失败", e);
+            return CompletableFuture.completedFuture(
+                    streamError(HttpStatus.INTERNAL_SERVER_ERROR, "搜索向量失败: " + e.getMessage()));
+        }
+    }
 
-            if (response.getStatus() != R.Status.Success.getCode()) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(Collections.singletonMap("error", response.getMessage()));
+    /**
+     * 写出单条查询的搜索结果，time为从发起搜索到拿到结果（含本地重排）的耗时
+     */
+    private ResponseEntity<StreamingResponseBody> searchResponse(SearchResultData results,
+                                                                 SearchService.Reranked reranked,
+                                                                 ResultJsonWriter.Format format,
+                                                                 long startTime, boolean cached) {
+        // 仅统计RPC耗时，不含请求构建
+        double searchTime = (System.nanoTime() - startTime) / 1e6;
+        return ResultJsonWriter.ok(objectMapper.getFactory(), generator -> {
+            generator.writeStartObject();
+            generator.writeFieldName("results");
+            if (reranked != null) {
+                ResultJsonWriter.writeSearchRows(generator, results, 0, format, reranked.rows(), reranked.scores());
+            } else {
+                ResultJsonWriter.writeSearchRows(generator, results, 0, format);
+            }
+            generator.writeNumberField("time", searchTime);
+            generator.writeBooleanField("cached", cached);
+            if (reranked != null) {
+                generator.writeNumberField("candidates", reranked.candidates());
+            }
+            generator.writeEndObject();
+        });
+    }
+
+    /**
+     * 使用二进制向量搜索，返回二进制结果：int32条数，之后每条为int64 id + float32距离
+     */
+    @PostMapping(value = "/collections/{name}/search", consumes = VectorCodec.MEDIA_TYPE)
+    public CompletableFuture<ResponseEntity<?>> searchBinaryVector(
+            @PathVariable String name,
+            @RequestParam(defaultValue = "10") int topK,
+            @RequestParam(defaultValue = "L2") String metricType,
+            @RequestParam(required = false) Integer nprobe,
+            @RequestParam(required = false) Integer ef,
+            HttpServletRequest request) {
+        try {
+            // 集合不存在时getKeyFields抛出IllegalArgumentException；结果中的id为int64，不支持VarChar主键
+            if (collectionMetadataService.getKeyFields(name).stringKey()) {
+                return CompletableFuture.completedFuture(
+                        ResponseUtil.error("二进制搜索只支持Int64主键，请使用JSON搜索接口"));
+            }
+            float[][] vectors = VectorCodec.decode(request.getInputStream().readAllBytes(), getVectorDimension(name));
+            if (vectors.length != 1) {
+                return CompletableFuture.completedFuture(
+                        ResponseUtil.error("仅支持单条查询向量，实际 " + vectors.length + " 条"));
             }
 
-            long endTime = System.currentTimeMillis();
-            long searchTime = endTime - startTime;
+            SearchRequest searchRequest = buildSearchRequest(topK, metricType, nprobe, ef, Collections.emptyList());
+            return async(() -> searchService.searchAsync(name, VectorCodec.asLists(vectors), searchRequest),
+                    response -> {
+                        if (response.getStatus() != R.Status.Success.getCode()) {
+                            return ResponseUtil.error(response.getMessage());
+                        }
 
-            SearchResultsWrapper wrapper = new SearchResultsWrapper(response.getData().getResults());
-            List<Map<String, Object>> results = new ArrayList<>();
+                        SearchResultsWrapper wrapper = new SearchResultsWrapper(response.getData().getResults());
+                        List<SearchResultsWrapper.IDScore> scores = wrapper.getIDScore(0);
+                        long[] ids = new long[scores.size()];
+                        float[] distances = new float[scores.size()];
+                        for (int i = 0; i < scores.size(); i++) {
+                            ids[i] = scores.get(i).getLongID();
+                            distances[i] = scores.get(i).getScore();
+                        }
 
-            for (int i = 0; i < wrapper.getDynamicWrapper().getRowCount(); i++) {
-                Map<String, Object> result = new HashMap<>();
-                result.put("rank", i + 1);
-                result.put("id", wrapper.getDynamicWrapper().get(i, "id"));
-                result.put("vector",wrapper.getDynamicWrapper().get(i, "vector"));
-                result.put("distance", wrapper.getIDScore(i));
-                results.add(result);
+                        return ResponseEntity.ok()
+                                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                                .body(VectorCodec.encodeSearchResults(ids, distances));
+                    }, "搜索向量失败");
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseUtil.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("搜索向量失败", e);
+            return CompletableFuture.completedFuture(ResponseUtil.serverError("搜索向量失败: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 批量搜索向量，超过nq上限时自动切分并发执行，按查询顺序返回每条查询的结果
+     */
+    @PostMapping("/collections/{name}/search/batch")
+    public ResponseEntity<?> batchSearchVector(
+            @PathVariable String name,
+            @RequestBody SearchRequest searchRequest) {
+        try {
+            if (searchRequest.getVectors() == null || searchRequest.getVectors().isEmpty()) {
+                return ResponseUtil.error("查询向量不能为空");
             }
+            long startTime = System.currentTimeMillis();
+
+            List<List<Map<String, Object>>> results = searchService.batchSearch(name, searchRequest);
 
             Map<String, Object> responseData = new HashMap<>();
             responseData.put("results", results);
-            responseData.put("time", searchTime);
+            responseData.put("nq", results.size());
+            responseData.put("time", System.currentTimeMillis() - startTime);
 
             return ResponseEntity.ok(responseData);
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(e.getMessage());
         } catch (Exception e) {
-            log.error("搜索向量失败", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Collections.singletonMap("error", "搜索向量失败: " + e.getMessage()));
+            log.error("批量搜索向量失败", e);
+            return ResponseUtil.serverError("批量搜索向量失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 召回率与延迟基准测试，与JVM内暴力计算的真实近邻对比
+     */
+    @PostMapping("/collections/{name}/benchmark")
+    public ResponseEntity<?> benchmark(@PathVariable String name, @RequestBody BenchmarkRequest request) {
+        try {
+            return ResponseEntity.ok(benchmarkService.run(name, request));
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseUtil.error(HttpStatus.CONFLICT, e.getMessage());
+        } catch (Exception e) {
+            log.error("基准测试失败", e);
+            return ResponseUtil.serverError("基准测试失败: " + e.getMessage());
+        }
+    }
+
+    private SearchRequest buildSearchRequest(int topK, String metricType, Integer nprobe, Integer ef,
+                                             List<String> outputFields) {
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setTopK(topK);
+        searchRequest.setMetricType(metricType);
+        searchRequest.setNprobe(nprobe);
+        searchRequest.setEf(ef);
+        searchRequest.setOutputFields(outputFields);
+        return searchRequest;
+    }
+
+    /**
+     * 立即flush集合
+     */
+    @PostMapping("/collections/{name}/flush")
+    public ResponseEntity<?> flushCollection(@PathVariable String name) {
+        try {
+            R<FlushResponse> response = flushScheduler.flushNow(name);
+            if (response.getStatus() != R.Status.Success.getCode()) {
+                return ResponseUtil.error(response.getMessage());
+            }
+            return ResponseUtil.success("集合已刷新");
+        } catch (Exception e) {
+            log.error("刷新集合失败", e);
+            return ResponseUtil.serverError("刷新集合失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取搜索结果缓存的命中、未命中和淘汰统计
+     */
+    @GetMapping("/search-cache/stats")
+    public ResponseEntity<?> getSearchCacheStats() {
+        return ResponseEntity.ok(searchCache.getStats());
+    }
+
+    /**
+     * 清空搜索结果缓存
+     */
+    @DeleteMapping("/search-cache")
+    public ResponseEntity<?> clearSearchCache() {
+        searchCache.clear();
+        return ResponseUtil.success("搜索缓存已清空");
+    }
+
+    /**
+     * 获取搜索合并的批数、平均批大小和排队延迟
+     */
+    @GetMapping("/search-batch/stats")
+    public ResponseEntity<?> getSearchBatchStats() {
+        return ResponseEntity.ok(searchBatcher.getStats());
+    }
+
+    /**
+     * 获取集群状态轮询的次数、推送事件数和最近一次快照
+     */
+    @GetMapping("/cluster-state")
+    public ResponseEntity<?> getClusterState() {
+        return ResponseEntity.ok(clusterStatePoller.getStats());
+    }
+
+    /**
+     * 获取异步请求的进行中数量、拒绝和超时次数
+     */
+    @GetMapping("/async/stats")
+    public ResponseEntity<?> getAsyncStats() {
+        return ResponseEntity.ok(asyncRpcService.getStats());
+    }
+
+    /**
+     * 获取待flush的变更行数
+     */
+    @GetMapping("/flush/pending")
+    public ResponseEntity<?> getPendingFlush() {
+        return ResponseEntity.ok(flushScheduler.getPendingRows());
+    }
+
+    /**
+     * 以异步RPC执行请求，then在RPC返回后构建响应，失败时转换为错误响应
+     */
+    private <T> CompletableFuture<ResponseEntity<?>> async(Supplier<ListenableFuture<T>> rpc,
+                                                           Function<T, ResponseEntity<?>> then, String failure) {
+        return asyncRpcService.call(rpc, then).exceptionally(e -> asyncError(e, failure));
+    }
+
+    /**
+     * 超出进行中请求上限返回503，超时返回504
+     */
+    private ResponseEntity<?> asyncError(Throwable e, String failure) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RejectedExecutionException) {
+            return ResponseUtil.error(HttpStatus.SERVICE_UNAVAILABLE, cause.getMessage());
+        }
+        if (cause instanceof TimeoutException) {
+            return ResponseUtil.error(HttpStatus.GATEWAY_TIMEOUT, failure + ": 请求超时");
+        }
+        if (cause instanceof IllegalArgumentException) {
+            return ResponseUtil.error(cause.getMessage());
+        }
+        log.error(failure, cause);
+        return ResponseUtil.serverError(failure + ": " + cause.getMessage());
+    }
+
+    /**
+     * 与{@link #asyncError}相同，错误以流式响应体写出，用于声明为流式响应的接口
+     */
+    private ResponseEntity<StreamingResponseBody> asyncStreamError(Throwable e, String failure) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RejectedExecutionException) {
+            return streamError(HttpStatus.SERVICE_UNAVAILABLE, cause.getMessage());
+        }
+        if (cause instanceof TimeoutException) {
+            return streamError(HttpStatus.GATEWAY_TIMEOUT, failure + ": 请求超时");
+        }
+        if (cause instanceof IllegalArgumentException) {
+            return streamError(HttpStatus.BAD_REQUEST, cause.getMessage());
+        }
+        log.error(failure, cause);
+        return streamError(HttpStatus.INTERNAL_SERVER_ERROR, failure + ": " + cause.getMessage());
+    }
+
+    /**
+     * 流式响应接口的错误响应，body为{"error": message}
+     */
+    private ResponseEntity<StreamingResponseBody> streamError(HttpStatus status, String message) {
+        return ResultJsonWriter.error(objectMapper.getFactory(), status, message);
+    }
+
+    private ConsistencyLevelEnum parseConsistencyLevel(String consistencyLevel) {
+        return ConsistencyLevelEnum.valueOf(consistencyLevel.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * 编码分页游标，内容为上一页最后一个主键
+     */
+    private String encodeCursor(String lastKey) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("v1:" + lastKey).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码分页游标，为空时返回null；Int64主键校验为数字
+     */
+    private String decodeCursor(String cursor, boolean stringKey) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith("v1:")) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            String lastKey = decoded.substring(3);
+            if (!stringKey) {
+                Long.parseLong(lastKey);
+            }
+            return lastKey;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标");
         }
     }
 
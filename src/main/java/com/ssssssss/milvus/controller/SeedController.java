@@ -0,0 +1,74 @@
+package com.ssssssss.milvus.controller;
+
+import com.ssssssss.milvus.model.SeedRequest;
+import com.ssssssss.milvus.service.SeedService;
+import com.ssssssss.milvus.util.ResponseUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 合成数据填充控制器类，向集合写入随机生成的向量并查询进度
+ *
+ * @author 冰点
+ */
+@RestController
+@RequestMapping("/api/milvus/seeds")
+@Slf4j
+public class SeedController {
+
+    @Autowired
+    private SeedService seedService;
+
+    /**
+     * 创建填充任务
+     */
+    @PostMapping
+    public ResponseEntity<?> createSeed(@RequestBody SeedRequest request) {
+        try {
+            if (request.getCollectionName() == null) {
+                return ResponseUtil.error("collectionName不能为空");
+            }
+            return ResponseEntity.ok(seedService.start(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(e.getMessage());
+        } catch (Exception e) {
+            log.error("创建填充任务失败", e);
+            return ResponseUtil.serverError("创建填充任务失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取填充任务列表
+     */
+    @GetMapping
+    public ResponseEntity<?> listSeeds() {
+        return ResponseEntity.ok(seedService.list());
+    }
+
+    /**
+     * 获取填充任务状态
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getSeed(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(seedService.get(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    /**
+     * 取消填充任务
+     */
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<?> cancelSeed(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(seedService.cancel(id));
+        } catch (IllegalArgumentException e) {
+            return ResponseUtil.error(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+}
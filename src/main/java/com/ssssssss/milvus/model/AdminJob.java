@@ -0,0 +1,35 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+/**
+ * 后台管理任务实体类，记录加载、建索引、flush、压缩等长耗时操作的进度
+ *
+ * @author 冰点
+ */
+@Data
+public class AdminJob {
+
+    public enum Type {
+        LOAD, INDEX, FLUSH, COMPACTION
+    }
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private String id;
+    private String clusterId;
+    private Type type;
+    private String collectionName;
+    private volatile Status status;
+    /**
+     * 进度百分比，0-100
+     */
+    private volatile int progress;
+    private volatile String detail;
+    private long createdAt;
+    private volatile long finishedAt;
+    private volatile long elapsedMs;
+    private volatile String error;
+}
@@ -0,0 +1,14 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+/**
+ * 后台管理任务请求实体类
+ *
+ * @author 冰点
+ */
+@Data
+public class AdminJobRequest {
+    private AdminJob.Type type;
+    private String collectionName;
+}
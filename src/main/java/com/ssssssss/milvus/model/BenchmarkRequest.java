@@ -0,0 +1,42 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 召回率与延迟基准测试请求实体类
+ *
+ * @author 冰点
+ */
+@Data
+public class BenchmarkRequest {
+    /**
+     * 查询向量条数
+     */
+    private int queries = 100;
+    /**
+     * sample从集合数据中抽样，random随机生成
+     */
+    private String querySource = "sample";
+    private int topK = 10;
+    /**
+     * 为空时使用索引的度量类型
+     */
+    private String metricType;
+    /**
+     * 依次测试的搜索参数，为空时按索引类型扫描nprobe或ef
+     */
+    private List<Map<String, Object>> params;
+    private List<Integer> concurrency = List.of(1, 4);
+    /**
+     * 用于计算真实近邻的数据行数上限，集合更大时搜索限定在该范围内
+     */
+    private int dataLimit = 100000;
+    /**
+     * 重新加载缓存的数据
+     */
+    private boolean refreshData;
+    private long seed = 42;
+}
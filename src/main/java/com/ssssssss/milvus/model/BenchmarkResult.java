@@ -0,0 +1,41 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试结果实体类，每组搜索参数与并发数对应一行
+ *
+ * @author 冰点
+ */
+@Data
+public class BenchmarkResult {
+    private String collectionName;
+    private String indexType;
+    private String metricType;
+    private int queries;
+    private int topK;
+    private int dataRows;
+    /**
+     * 集合行数超过dataLimit时为true，此时搜索带上主键范围过滤
+     */
+    private boolean limited;
+    private long groundTruthMs;
+    private List<Run> runs = new ArrayList<>();
+
+    @Data
+    public static class Run {
+        private Map<String, Object> params;
+        private int concurrency;
+        private double recall;
+        private double qps;
+        private double meanMs;
+        private double p50Ms;
+        private double p95Ms;
+        private double p99Ms;
+        private int errors;
+    }
+}
@@ -0,0 +1,23 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量删除请求实体类，ids和expr二选一
+ *
+ * @author 冰点
+ */
+@Data
+public class BulkDeleteRequest {
+    /**
+     * 主键列表，Int64主键传数字，VarChar主键传字符串
+     */
+    private List<Object> ids;
+    /**
+     * 任意过滤表达式，例如 id > 1000
+     */
+    private String expr;
+    private boolean flush = true;
+}
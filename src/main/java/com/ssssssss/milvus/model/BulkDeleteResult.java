@@ -0,0 +1,42 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 批量删除结果实体类，执行过程中也作为进度快照返回
+ *
+ * @author 冰点
+ */
+@Data
+public class BulkDeleteResult {
+    private String expr;
+    private long requestedIds;
+    private volatile long deletedRows;
+    private int chunks;
+    private volatile int completedChunks;
+    private volatile boolean finished;
+    private boolean flushed;
+    private long elapsedMs;
+    private List<ChunkFailure> failures = new CopyOnWriteArrayList<>();
+
+    /**
+     * 失败分片信息
+     */
+    @Data
+    public static class ChunkFailure {
+        private int chunk;
+        private Object firstId;
+        private int ids;
+        private String error;
+
+        public ChunkFailure(int chunk, Object firstId, int ids, String error) {
+            this.chunk = chunk;
+            this.firstId = firstId;
+            this.ids = ids;
+            this.error = error;
+        }
+    }
+}
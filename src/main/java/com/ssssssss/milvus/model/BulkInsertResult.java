@@ -0,0 +1,47 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量插入结果实体类，记录吞吐量及失败批次信息
+ *
+ * @author 冰点
+ */
+@Data
+public class BulkInsertResult {
+    private long rows;
+    private long insertedRows;
+    private int batches;
+    private int flushes;
+    private long elapsedMs;
+    private double rowsPerSecond;
+    private List<BatchFailure> failures = new ArrayList<>();
+    /**
+     * 请求体解析错误，不为空时rows为出错前已解析的行数
+     */
+    private String error;
+
+    /**
+     * 失败批次信息
+     */
+    @Data
+    public static class BatchFailure {
+        private int batch;
+        /**
+         * 批次第一行的主键，autoId集合为null
+         */
+        private Object firstId;
+        private int rows;
+        private String error;
+
+        public BatchFailure(int batch, Object firstId, int rows, String error) {
+            this.batch = batch;
+            this.firstId = firstId;
+            this.rows = rows;
+            this.error = error;
+        }
+    }
+}
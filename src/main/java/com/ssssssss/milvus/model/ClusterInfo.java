@@ -0,0 +1,30 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+/**
+ * 集群连接信息实体类，描述注册表中的一个Milvus客户端
+ *
+ * @author 冰点
+ */
+@Data
+public class ClusterInfo {
+    private String id;
+    private String host;
+    private int port;
+    private String username;
+    private String database;
+    private boolean healthy;
+    private long lastUsedAt;
+
+    public ClusterInfo(String id, String host, int port, String username, String database,
+                       boolean healthy, long lastUsedAt) {
+        this.id = id;
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.database = database;
+        this.healthy = healthy;
+        this.lastUsedAt = lastUsedAt;
+    }
+}
@@ -0,0 +1,70 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 集合结构定义实体类，用于创建带标量字段和分区键的集合
+ *
+ * @author 冰点
+ */
+@Data
+public class CollectionSpec {
+    private String name;
+    private String description;
+    /**
+     * 主键字段名及类型，类型为Int64或VarChar
+     */
+    private String primaryField = "id";
+    private String primaryType = "Int64";
+    /**
+     * VarChar主键的最大长度
+     */
+    private Integer primaryMaxLength;
+    private boolean autoId;
+    private String vectorField = "vector";
+    private int dimension;
+    /**
+     * 标量字段
+     */
+    private List<Field> fields = new ArrayList<>();
+    /**
+     * 存在分区键字段时的分区数，为空时使用Milvus默认值
+     */
+    private Integer numPartitions;
+    private int shardsNum = 2;
+    private boolean enableDynamicField;
+    /**
+     * 向量索引
+     */
+    private String indexType = "IVF_FLAT";
+    private String metricType = "L2";
+    private Map<String, Object> indexParams;
+    private Long expectedRows;
+
+    /**
+     * 标量字段定义
+     */
+    @Data
+    public static class Field {
+        private String name;
+        /**
+         * Bool、Int8、Int16、Int32、Int64、Float、Double、VarChar、JSON或Array
+         */
+        private String dataType;
+        /**
+         * VarChar及VarChar数组元素的最大长度
+         */
+        private Integer maxLength;
+        /**
+         * Array的元素类型及最大元素个数
+         */
+        private String elementType;
+        private Integer maxCapacity;
+        private boolean partitionKey;
+        private String description;
+    }
+}
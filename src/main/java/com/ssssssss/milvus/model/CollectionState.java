@@ -0,0 +1,29 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+/**
+ * 集合状态实体类，集群状态轮询的快照条目，相邻两次快照按equals比较推送变化
+ *
+ * @author 冰点
+ */
+@Data
+public class CollectionState {
+    private String name;
+    private String description;
+    private int dimension;
+    private long count;
+    private String status;
+    /**
+     * 持久化段数，不含已删除的段
+     */
+    private int segments;
+    /**
+     * 仍在写入的段数
+     */
+    private int growingSegments;
+    /**
+     * 已封存或已flush的段中的行数
+     */
+    private long sealedRows;
+}
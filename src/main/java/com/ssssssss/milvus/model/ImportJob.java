@@ -0,0 +1,40 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+/**
+ * 文件导入任务实体类，同时作为断点持久化的内容
+ *
+ * <p>offset为已全部写入Milvus的字节位置，恢复时从该位置继续解析。</p>
+ *
+ * @author 冰点
+ */
+@Data
+public class ImportJob {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private String id;
+    private String clusterId;
+    private String collectionName;
+    private String path;
+    private String format;
+    /**
+     * fvecs/npy文件不带id，按记录序号从startId开始生成
+     */
+    private long startId;
+    private long fileBytes;
+    private volatile Status status;
+    private volatile long offset;
+    /**
+     * 最后提交的主键，VarChar主键为字符串，autoId集合为null
+     */
+    private volatile Object lastCommittedId;
+    private volatile long rowsImported;
+    private volatile double rowsPerSecond;
+    private long createdAt;
+    private volatile long finishedAt;
+    private volatile String error;
+}
@@ -0,0 +1,22 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+/**
+ * 文件导入请求实体类
+ *
+ * @author 冰点
+ */
+@Data
+public class ImportRequest {
+    private String collectionName;
+    /**
+     * 相对于导入目录的文件路径
+     */
+    private String path;
+    /**
+     * ndjson、fvecs或npy，为空时按扩展名推断
+     */
+    private String format;
+    private long startId;
+}
@@ -0,0 +1,32 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 索引构建记录实体类，用于对比不同索引的构建耗时和内存占用
+ *
+ * @author 冰点
+ */
+@Data
+public class IndexBuildRecord {
+    private String jobId;
+    private String clusterId;
+    private String collectionName;
+    private String indexType;
+    private String metricType;
+    private Map<String, Object> params;
+    private int dimension;
+    private long rows;
+    private long buildMs;
+    /**
+     * 按索引类型估算的内存占用，仅供参考
+     */
+    private Long estimatedBytes;
+    /**
+     * 加载后各段memSize之和，未加载时为空
+     */
+    private volatile Long memoryBytes;
+    private long createdAt;
+}
@@ -0,0 +1,25 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 索引配置实体类，params为空时按维度和行数使用预设参数
+ *
+ * @author 冰点
+ */
+@Data
+public class IndexSpec {
+    private String indexType = "IVF_FLAT";
+    private String metricType = "L2";
+    private Map<String, Object> params;
+    /**
+     * 预期行数，用于计算nlist等预设参数，为空时使用集合当前行数
+     */
+    private Long expectedRows;
+    /**
+     * 重建后是否重新加载集合并测量内存占用
+     */
+    private boolean reload = true;
+}
@@ -0,0 +1,65 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 压测实体类，运行期间每秒更新吞吐和延迟分位数
+ *
+ * @author 冰点
+ */
+@Data
+public class LoadTest {
+
+    public enum Status {
+        RUNNING, COMPLETED, STOPPED, FAILED
+    }
+
+    private String id;
+    private String clusterId;
+    private String collectionName;
+    private LoadTestRequest request;
+    private volatile Status status;
+    private long startedAt;
+    private volatile long finishedAt;
+    private volatile long elapsedMs;
+    private volatile long reads;
+    private volatile long writes;
+    private volatile long errors;
+    /**
+     * 最近一秒的吞吐
+     */
+    private volatile double currentQps;
+    private volatile double averageQps;
+    /**
+     * 读写延迟分位数，开环模式下从计划发起时间开始计时，包含排队等待
+     */
+    private volatile Latency readLatency;
+    private volatile Latency writeLatency;
+    /**
+     * 每秒一个采样点
+     */
+    private List<Point> timeline = new CopyOnWriteArrayList<>();
+    private volatile String error;
+
+    @Data
+    public static class Latency {
+        private long count;
+        private double meanMs;
+        private double p50Ms;
+        private double p90Ms;
+        private double p99Ms;
+        private double p999Ms;
+        private double maxMs;
+    }
+
+    @Data
+    public static class Point {
+        private double second;
+        private double qps;
+        private double p99Ms;
+        private long errors;
+    }
+}
@@ -0,0 +1,40 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+/**
+ * 压测请求实体类
+ *
+ * @author 冰点
+ */
+@Data
+public class LoadTestRequest {
+    private String collectionName;
+    /**
+     * 并发工作线程数
+     */
+    private int concurrency = 8;
+    /**
+     * 目标QPS，大于0时按固定速率发起请求（开环），否则每个线程收到响应后立即发起下一个（闭环）
+     */
+    private double targetQps;
+    private int durationSeconds = 30;
+    /**
+     * 读请求占比，0-1，其余为写入
+     */
+    private double readRatio = 1.0;
+    private int topK = 10;
+    private String metricType = "L2";
+    /**
+     * 搜索参数JSON
+     */
+    private String params;
+    /**
+     * 每次写入的行数
+     */
+    private int insertBatchSize = 1;
+    /**
+     * 写入的起始id，为空时取当前毫秒时间戳×1000，避免与已有数据冲突
+     */
+    private Long writeIdStart;
+}
@@ -0,0 +1,36 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 向量搜索请求实体类，封装查询向量及搜索参数
+ *
+ * @author 冰点
+ */
+@Data
+public class SearchRequest {
+    private List<List<Float>> vectors;
+    private int topK = 10;
+    private String metricType = "L2";
+    private Integer nprobe;
+    private Integer ef;
+    /**
+     * 原始搜索参数JSON，设置后忽略nprobe和ef
+     */
+    private String params;
+    private List<String> outputFields;
+    /**
+     * 标量过滤表达式，例如 id <= 1000；按分区键过滤时Milvus只搜索相关分区
+     */
+    private String expr;
+    /**
+     * 只在指定分区中搜索
+     */
+    private List<String> partitionNames;
+    /**
+     * 一致性级别，需要读到刚写入的数据时使用STRONG
+     */
+    private String consistencyLevel;
+}
@@ -0,0 +1,31 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+/**
+ * 合成数据填充任务实体类
+ *
+ * @author 冰点
+ */
+@Data
+public class SeedJob {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private String id;
+    private String clusterId;
+    private String collectionName;
+    private long rows;
+    private int dimension;
+    private String distribution;
+    private long seed;
+    private long startId;
+    private volatile Status status;
+    private volatile long rowsInserted;
+    private volatile double rowsPerSecond;
+    private long createdAt;
+    private volatile long finishedAt;
+    private volatile String error;
+}
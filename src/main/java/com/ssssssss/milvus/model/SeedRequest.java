@@ -0,0 +1,39 @@
+package com.ssssssss.milvus.model;
+
+import lombok.Data;
+
+/**
+ * 合成数据填充请求实体类
+ *
+ * @author 冰点
+ */
+@Data
+public class SeedRequest {
+    private String collectionName;
+    private long rows = 100000;
+    /**
+     * 向量维度，为空时使用集合的维度，指定时必须与集合一致
+     */
+    private Integer dimension;
+    /**
+     * uniform、gaussian或clustered
+     */
+    private String distribution = "uniform";
+    private long seed = 42;
+    /**
+     * 起始id，依次递增
+     */
+    private long startId;
+    /**
+     * clustered的中心数
+     */
+    private int clusters = 16;
+    /**
+     * clustered中每个分量的标准差
+     */
+    private float spread = 0.05f;
+    /**
+     * 是否归一化为单位向量
+     */
+    private boolean normalize;
+}
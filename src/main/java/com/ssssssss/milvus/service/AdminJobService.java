@@ -0,0 +1,380 @@
+package com.ssssssss.milvus.service;
+
+import com.ssssssss.milvus.config.ClusterContext;
+import com.ssssssss.milvus.model.AdminJob;
+import io.milvus.client.MilvusClient;
+import io.milvus.grpc.*;
+import io.milvus.param.R;
+import io.milvus.param.collection.FlushParam;
+import io.milvus.param.collection.GetLoadingProgressParam;
+import io.milvus.param.collection.LoadCollectionParam;
+import io.milvus.param.control.GetCompactionStateParam;
+import io.milvus.param.control.GetFlushStateParam;
+import io.milvus.param.control.ManualCompactParam;
+import io.milvus.param.index.CreateIndexParam;
+import io.milvus.param.index.DescribeIndexParam;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 后台管理任务服务，以非阻塞方式发起加载、建索引、flush、压缩，再按退避间隔轮询进度并通过SSE推送
+ *
+ * <p>发起和轮询都是短RPC，等待期间不占用线程，少量调度线程即可同时跟踪大量任务。</p>
+ *
+ * @author 冰点
+ */
+@Service
+@Slf4j
+public class AdminJobService {
+
+    public static final String EVENT_NAME = "job";
+
+    @Autowired
+    private MilvusClient milvusClient;
+
+    @Autowired
+    private CollectionMetadataService collectionMetadataService;
+
+    @Autowired
+    private RowCountService rowCountService;
+
+    @Autowired
+    private SearchCache searchCache;
+
+    @Autowired
+    private SseBroadcaster broadcaster;
+
+    @Autowired
+    private ClusterStatePoller clusterStatePoller;
+
+    @Value("${milvus.jobs.concurrency:4}")
+    private int concurrency;
+
+    @Value("${milvus.jobs.poll-initial-ms:200}")
+    private long pollInitialMs;
+
+    @Value("${milvus.jobs.poll-max-ms:5000}")
+    private long pollMaxMs;
+
+    @Value("${milvus.jobs.timeout-seconds:3600}")
+    private long timeoutSeconds;
+
+    @Value("${milvus.jobs.history:100}")
+    private int history;
+
+    private final Map<String, AdminJob> jobs = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 异步加载集合
+     */
+    public AdminJob load(String collectionName) {
+        return load(collectionName, null);
+    }
+
+    /**
+     * 异步加载集合，完成后执行then
+     */
+    public AdminJob load(String collectionName, Consumer<AdminJob> then) {
+        return submit(AdminJob.Type.LOAD, collectionName, then, new Operation() {
+            @Override
+            void start() {
+                check(milvusClient.loadCollection(LoadCollectionParam.newBuilder()
+                        .withCollectionName(collectionName)
+                        .withSyncLoad(false)
+                        .build()));
+            }
+
+            @Override
+            int poll(AdminJob job) {
+                R<GetLoadingProgressResponse> response = milvusClient.getLoadingProgress(
+                        GetLoadingProgressParam.newBuilder().withCollectionName(collectionName).build());
+                check(response);
+                return (int) response.getData().getProgress();
+            }
+
+            @Override
+            void onComplete() {
+                collectionMetadataService.invalidate(collectionName);
+                rowCountService.invalidate(collectionName);
+                searchCache.invalidate(collectionName);
+            }
+        });
+    }
+
+    /**
+     * 异步创建索引，完成后执行then
+     */
+    public AdminJob buildIndex(String collectionName, CreateIndexParam.Builder param, Consumer<AdminJob> then) {
+        return submit(AdminJob.Type.INDEX, collectionName, then, new Operation() {
+            @Override
+            void start() {
+                check(milvusClient.createIndex(param.withSyncMode(false).build()));
+            }
+
+            @Override
+            int poll(AdminJob job) {
+                R<DescribeIndexResponse> response = milvusClient.describeIndex(
+                        DescribeIndexParam.newBuilder().withCollectionName(collectionName).build());
+                check(response);
+                long indexed = 0;
+                long total = 0;
+                boolean finished = true;
+                for (IndexDescription index : response.getData().getIndexDescriptionsList()) {
+                    if (index.getState() == IndexState.Failed) {
+                        throw new IllegalStateException("索引构建失败: " + index.getIndexStateFailReason());
+                    }
+                    finished &= index.getState() == IndexState.Finished;
+                    indexed += index.getIndexedRows();
+                    total += index.getTotalRows();
+                }
+                job.setDetail(indexed + "/" + total + " 行");
+                if (finished) {
+                    return 100;
+                }
+                return total > 0 ? (int) Math.min(99, indexed * 100 / total) : 0;
+            }
+
+            @Override
+            void onComplete() {
+                collectionMetadataService.invalidate(collectionName);
+                searchCache.invalidate(collectionName);
+            }
+        });
+    }
+
+    /**
+     * 异步flush集合
+     */
+    public AdminJob flush(String collectionName) {
+        return submit(AdminJob.Type.FLUSH, collectionName, null, new Operation() {
+            private Long flushTs;
+
+            @Override
+            void start() {
+                R<FlushResponse> response = milvusClient.flush(FlushParam.newBuilder()
+                        .addCollectionName(collectionName)
+                        .withSyncFlush(false)
+                        .build());
+                check(response);
+                flushTs = response.getData().getCollFlushTsMap().get(collectionName);
+            }
+
+            @Override
+            int poll(AdminJob job) {
+                if (flushTs == null) {
+                    return 100;
+                }
+                R<GetFlushStateResponse> response = milvusClient.getFlushState(GetFlushStateParam.newBuilder()
+                        .withCollectionName(collectionName)
+                        .withFlushTs(flushTs)
+                        .build());
+                check(response);
+                return response.getData().getFlushed() ? 100 : 0;
+            }
+
+            @Override
+            void onComplete() {
+                rowCountService.invalidate(collectionName);
+            }
+        });
+    }
+
+    /**
+     * 异步压缩集合
+     */
+    public AdminJob compact(String collectionName) {
+        return submit(AdminJob.Type.COMPACTION, collectionName, null, new Operation() {
+            private long compactionId;
+
+            @Override
+            void start() {
+                R<ManualCompactionResponse> response = milvusClient.manualCompact(
+                        ManualCompactParam.newBuilder().withCollectionName(collectionName).build());
+                check(response);
+                compactionId = response.getData().getCompactionID();
+            }
+
+            @Override
+            int poll(AdminJob job) {
+                R<GetCompactionStateResponse> response = milvusClient.getCompactionState(
+                        GetCompactionStateParam.newBuilder().withCompactionID(compactionId).build());
+                check(response);
+                GetCompactionStateResponse state = response.getData();
+                long plans = state.getExecutingPlanNo() + state.getCompletedPlanNo()
+                        + state.getFailedPlanNo() + state.getTimeoutPlanNo();
+                job.setDetail(state.getCompletedPlanNo() + "/" + plans + " 个计划");
+                if (state.getState() == CompactionState.Completed) {
+                    return 100;
+                }
+                return plans > 0 ? (int) Math.min(99, state.getCompletedPlanNo() * 100 / plans) : 0;
+            }
+        });
+    }
+
+    public AdminJob get(String jobId) {
+        AdminJob job = jobs.get(jobId);
+        if (job == null || !job.getClusterId().equals(ClusterContext.current())) {
+            throw new IllegalArgumentException("任务不存在: " + jobId);
+        }
+        return job;
+    }
+
+    /**
+     * 获取当前集群的任务，按创建时间倒序
+     */
+    public List<AdminJob> list() {
+        String clusterId = ClusterContext.current();
+        List<AdminJob> result = new ArrayList<>();
+        for (AdminJob job : jobs.values()) {
+            if (job.getClusterId().equals(clusterId)) {
+                result.add(job);
+            }
+        }
+        result.sort(Comparator.comparingLong(AdminJob::getCreatedAt).reversed());
+        return result;
+    }
+
+    private AdminJob submit(AdminJob.Type type, String collectionName, Consumer<AdminJob> then, Operation operation) {
+        AdminJob job = new AdminJob();
+        job.setId(UUID.randomUUID().toString().replace("-", "").substring(0, 12));
+        job.setClusterId(ClusterContext.current());
+        job.setType(type);
+        job.setCollectionName(collectionName);
+        job.setStatus(AdminJob.Status.RUNNING);
+        job.setCreatedAt(System.currentTimeMillis());
+        jobs.put(job.getId(), job);
+        publish(job);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        scheduler.execute(ClusterContext.wrap(() -> {
+            try {
+                operation.start();
+            } catch (Exception e) {
+                fail(job, e);
+                return;
+            }
+            poll(job, operation, then, pollInitialMs, deadline);
+        }));
+        return job;
+    }
+
+    /**
+     * 轮询一次进度，进度未变化时加倍间隔，有变化时恢复初始间隔
+     */
+    private void poll(AdminJob job, Operation operation, Consumer<AdminJob> then, long delayMs, long deadline) {
+        try {
+            int progress = operation.poll(job);
+            if (progress >= 100) {
+                job.setProgress(100);
+                operation.onComplete();
+                finish(job, AdminJob.Status.COMPLETED);
+                if (then != null) {
+                    try {
+                        then.accept(job);
+                    } catch (Exception e) {
+                        log.error("后台任务后续操作失败: {} {}", job.getType(), job.getCollectionName(), e);
+                    }
+                }
+                return;
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("任务超过 " + timeoutSeconds + " 秒未完成");
+            }
+            long delay = progress != job.getProgress() ? pollInitialMs : Math.min(delayMs * 2, pollMaxMs);
+            if (progress != job.getProgress()) {
+                job.setProgress(progress);
+                publish(job);
+            }
+            scheduler.schedule(ClusterContext.wrap(() -> poll(job, operation, then, delay, deadline)),
+                    delay, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            fail(job, e);
+        }
+    }
+
+    private void fail(AdminJob job, Exception e) {
+        log.error("后台任务失败: {} {} {}", job.getType(), job.getCollectionName(), e.getMessage());
+        job.setError(e.getMessage());
+        finish(job, AdminJob.Status.FAILED);
+    }
+
+    private void finish(AdminJob job, AdminJob.Status status) {
+        job.setFinishedAt(System.currentTimeMillis());
+        job.setElapsedMs(job.getFinishedAt() - job.getCreatedAt());
+        job.setStatus(status);
+        publish(job);
+        // 任务结束后尽快推送集合状态变化，不等下一个轮询间隔
+        clusterStatePoller.pollSoon(job.getClusterId());
+        trimHistory();
+    }
+
+    /**
+     * 只保留最近的已结束任务
+     */
+    private void trimHistory() {
+        List<AdminJob> finished = new ArrayList<>();
+        for (AdminJob job : jobs.values()) {
+            if (job.getStatus() != AdminJob.Status.RUNNING) {
+                finished.add(job);
+            }
+        }
+        if (finished.size() <= history) {
+            return;
+        }
+        finished.sort(Comparator.comparingLong(AdminJob::getFinishedAt));
+        for (int i = 0; i < finished.size() - history; i++) {
+            jobs.remove(finished.get(i).getId());
+        }
+    }
+
+    private void publish(AdminJob job) {
+        broadcaster.publish(job.getClusterId(), EVENT_NAME, job);
+    }
+
+    private static void check(R<?> response) {
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            throw new IllegalStateException(response.getMessage());
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        scheduler = Executors.newScheduledThreadPool(Math.max(1, concurrency), r -> {
+            Thread thread = new Thread(r, "milvus-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 一个后台操作：start发起非阻塞请求，poll返回0-100的进度
+     */
+    private abstract static class Operation {
+        abstract void start();
+
+        abstract int poll(AdminJob job);
+
+        void onComplete() {
+        }
+    }
+}
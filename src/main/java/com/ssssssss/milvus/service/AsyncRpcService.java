@@ -0,0 +1,135 @@
+package com.ssssssss.milvus.service;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.ssssssss.milvus.config.ClusterContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 异步RPC服务，基于SDK的searchAsync/queryAsync/insertAsync发起调用，请求线程不等待gRPC往返
+ *
+ * <p>进行中的调用数受信号量限制，超出时直接拒绝；每个调用有超时时间，超时后取消RPC。
+ * 结果处理在独立的回调线程池上执行，并沿用发起调用时的集群。</p>
+ *
+ * @author 冰点
+ */
+@Service
+@Slf4j
+public class AsyncRpcService {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${milvus.async.max-in-flight:256}")
+    private int maxInFlight;
+
+    @Value("${milvus.async.timeout-ms:20000}")
+    private long timeoutMs;
+
+    @Value("${milvus.async.callback-threads:4}")
+    private int callbackThreads;
+
+    private Semaphore permits;
+
+    private ExecutorService executor;
+
+    private Counter rejected;
+
+    private Counter timeouts;
+
+    /**
+     * 发起异步RPC，完成后在回调线程上用then转换结果
+     *
+     * <p>进行中的调用已达上限时返回以{@link RejectedExecutionException}失败的Future，
+     * 超时时以{@link TimeoutException}失败。</p>
+     */
+    public <T, U> CompletableFuture<U> call(Supplier<ListenableFuture<T>> rpc, Function<T, U> then) {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("进行中的请求数已达上限: " + maxInFlight));
+        }
+        ListenableFuture<T> future;
+        try {
+            future = rpc.get();
+        } catch (RuntimeException e) {
+            permits.release();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<U> result = new CompletableFuture<>();
+        future.addListener(ClusterContext.wrap(() -> {
+            // RPC结束（含取消）后才归还许可，超时的调用不会让实际并发超过上限
+            permits.release();
+            try {
+                result.complete(then.apply(Futures.getDone(future)));
+            } catch (ExecutionException e) {
+                result.completeExceptionally(e.getCause());
+            } catch (CancellationException e) {
+                result.completeExceptionally(new TimeoutException("请求超时: " + timeoutMs + "ms"));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }), executor);
+
+        return result.orTimeout(timeoutMs, TimeUnit.MILLISECONDS).whenComplete((value, e) -> {
+            if (e instanceof TimeoutException && !future.isDone()) {
+                timeouts.increment();
+                future.cancel(true);
+            }
+        });
+    }
+
+    /**
+     * 进行中的调用数、上限及拒绝和超时次数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", maxInFlight - permits.availablePermits());
+        stats.put("maxInFlight", maxInFlight);
+        stats.put("timeoutMs", timeoutMs);
+        stats.put("rejected", (long) rejected.count());
+        stats.put("timeouts", (long) timeouts.count());
+        return stats;
+    }
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(Math.max(1, maxInFlight));
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, callbackThreads), r -> {
+            Thread thread = new Thread(r, "milvus-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("milvus.async.in.flight", permits, p -> maxInFlight - p.availablePermits())
+                .description("In-flight async Milvus RPCs")
+                .register(meterRegistry);
+        rejected = Counter.builder("milvus.async.rejected")
+                .description("Async Milvus RPCs rejected by the in-flight limit")
+                .register(meterRegistry);
+        timeouts = Counter.builder("milvus.async.timeouts")
+                .description("Async Milvus RPCs cancelled after the timeout")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,589 @@
+package com.ssssssss.milvus.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ssssssss.milvus.config.ClusterContext;
+import com.ssssssss.milvus.model.BenchmarkRequest;
+import com.ssssssss.milvus.model.BenchmarkResult;
+import com.ssssssss.milvus.model.SearchRequest;
+import com.ssssssss.milvus.util.VectorMath;
+import io.milvus.client.MilvusClient;
+import io.milvus.grpc.FieldData;
+import io.milvus.grpc.FloatArray;
+import io.milvus.grpc.LongArray;
+import io.milvus.grpc.QueryResults;
+import io.milvus.grpc.SearchResults;
+import io.milvus.param.R;
+import io.milvus.param.dml.QueryParam;
+import io.milvus.response.SearchResultsWrapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 召回率与延迟基准测试服务
+ *
+ * <p>将集合的一段数据缓存为连续的float数组，在JVM内暴力计算真实近邻，
+ * 再按搜索参数和并发数扫描ANN搜索，统计recall@k、QPS和延迟分位数。只支持Int64主键。</p>
+ *
+ * @author 冰点
+ */
+@Service
+@Slf4j
+public class BenchmarkService {
+
+    private static final int QUERY_PAGE = 16384;
+
+    @Autowired
+    private MilvusClient milvusClient;
+
+    @Autowired
+    private MilvusService milvusService;
+
+    @Autowired
+    private CollectionMetadataService collectionMetadataService;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private IndexService indexService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${milvus.benchmark.max-concurrency:32}")
+    private int maxConcurrency;
+
+    @Value("${milvus.benchmark.max-queries:1000}")
+    private int maxQueries;
+
+    @Value("${milvus.benchmark.max-data-rows:1000000}")
+    private int maxDataRows;
+
+    @Value("${milvus.benchmark.slice-ttl-seconds:600}")
+    private long sliceTtlSeconds;
+
+    @Value("${milvus.benchmark.warmup-queries:10}")
+    private int warmupQueries;
+
+    private final Map<String, Slice> slices = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private ExecutorService executor;
+
+    /**
+     * 执行一次基准测试，同一时间只允许一个测试运行，避免相互干扰延迟数据
+     */
+    public BenchmarkResult run(String collectionName, BenchmarkRequest request) {
+        validate(request);
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("已有基准测试正在运行");
+        }
+        try {
+            return doRun(collectionName, request);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 清除集合的数据缓存
+     */
+    public void invalidate(String collectionName) {
+        slices.remove(ClusterContext.scoped(collectionName));
+    }
+
+    private BenchmarkResult doRun(String collectionName, BenchmarkRequest request) {
+        // 真实近邻按long[]主键与搜索结果比较
+        CollectionMetadataService.KeyFields keys = collectionMetadataService.getKeyFields(collectionName);
+        if (keys.stringKey()) {
+            throw new IllegalArgumentException("基准测试只支持Int64主键，集合 " + collectionName + " 的主键为VarChar");
+        }
+        Map<String, Object> index = indexService.describeAsMap(collectionName).stream()
+                .filter(row -> keys.vectorName().equals(row.get("fieldName")))
+                .findFirst()
+                .orElse(Collections.emptyMap());
+        String indexType = (String) index.getOrDefault("index_type", "FLAT");
+        String metricType = request.getMetricType() != null
+                ? request.getMetricType().toUpperCase(Locale.ROOT)
+                : (String) index.getOrDefault("metric_type", "L2");
+
+        Slice slice = slice(collectionName, keys, Math.min(request.getDataLimit(), maxDataRows), request.isRefreshData());
+        if (slice.rows == 0) {
+            throw new IllegalArgumentException("集合中没有数据: " + collectionName);
+        }
+        int topK = Math.min(request.getTopK(), slice.rows);
+        float[][] queries = queries(slice, request);
+
+        long start = System.nanoTime();
+        long[][] truth = groundTruth(slice, queries, topK, metricType);
+        long groundTruthMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("基准测试真实近邻计算完成: 集合={}, 数据={}行, 查询={}条, 耗时={}ms",
+                collectionName, slice.rows, queries.length, groundTruthMs);
+
+        BenchmarkResult result = new BenchmarkResult();
+        result.setCollectionName(collectionName);
+        result.setIndexType(indexType);
+        result.setMetricType(metricType);
+        result.setQueries(queries.length);
+        result.setTopK(topK);
+        result.setDataRows(slice.rows);
+        result.setLimited(!slice.complete);
+        result.setGroundTruthMs(groundTruthMs);
+
+        List<List<Float>> vectors = new ArrayList<>(queries.length);
+        for (float[] query : queries) {
+            vectors.add(toList(query));
+        }
+        List<Map<String, Object>> sweep = request.getParams() != null && !request.getParams().isEmpty()
+                ? request.getParams()
+                : defaultParams(indexType, topK);
+        for (Map<String, Object> params : sweep) {
+            SearchRequest search = new SearchRequest();
+            search.setTopK(topK);
+            search.setMetricType(metricType);
+            search.setParams(toJson(params));
+            if (!slice.complete) {
+                // 只在已缓存的数据范围内搜索，召回率才与真实近邻可比
+                search.setExpr(keys.primaryName() + " <= " + slice.maxId);
+            }
+            warmup(collectionName, vectors, search);
+            for (int concurrency : request.getConcurrency()) {
+                BenchmarkResult.Run run = measure(collectionName, vectors, truth, search,
+                        Math.min(concurrency, maxConcurrency));
+                run.setParams(params);
+                result.getRuns().add(run);
+                log.info("基准测试: 集合={}, 参数={}, 并发={}, recall={}, QPS={}, p99={}ms", collectionName,
+                        params, run.getConcurrency(), run.getRecall(), run.getQps(), run.getP99Ms());
+            }
+        }
+        return result;
+    }
+
+    private void validate(BenchmarkRequest request) {
+        if (request.getQueries() <= 0 || request.getQueries() > maxQueries) {
+            throw new IllegalArgumentException("queries必须在1到" + maxQueries + "之间");
+        }
+        if (request.getTopK() <= 0 || request.getTopK() > 1000) {
+            throw new IllegalArgumentException("topK必须在1到1000之间");
+        }
+        if (request.getDataLimit() <= 0) {
+            throw new IllegalArgumentException("dataLimit必须大于0");
+        }
+        if (request.getConcurrency() == null || request.getConcurrency().isEmpty()
+                || request.getConcurrency().stream().anyMatch(c -> c == null || c <= 0)) {
+            throw new IllegalArgumentException("concurrency必须为正整数列表");
+        }
+        if (request.getMetricType() != null
+                && !List.of("L2", "IP", "COSINE").contains(request.getMetricType().toUpperCase(Locale.ROOT))) {
+            throw new IllegalArgumentException("metricType仅支持L2、IP、COSINE");
+        }
+    }
+
+    /**
+     * 按索引类型给出默认的搜索参数扫描范围
+     */
+    private static List<Map<String, Object>> defaultParams(String indexType, int topK) {
+        List<Map<String, Object>> params = new ArrayList<>();
+        if (indexType.startsWith("IVF") || "SCANN".equals(indexType)) {
+            for (int nprobe : new int[]{1, 4, 16, 64}) {
+                params.add(Map.of("nprobe", nprobe));
+            }
+        } else if ("HNSW".equals(indexType)) {
+            // ef不能小于topK
+            for (int ef : new TreeSet<>(List.of(Math.max(topK, 16), Math.max(topK, 32), Math.max(topK, 64),
+                    Math.max(topK, 128)))) {
+                params.add(Map.of("ef", ef));
+            }
+        } else {
+            params.add(Collections.emptyMap());
+        }
+        return params;
+    }
+
+    // ==================== 数据缓存 ====================
+
+    /**
+     * 获取集合前limit行数据，按TTL缓存
+     */
+    private Slice slice(String collectionName, CollectionMetadataService.KeyFields keys, int limit, boolean refresh) {
+        String key = ClusterContext.scoped(collectionName);
+        Slice cached = slices.get(key);
+        if (!refresh && cached != null && !cached.isExpired(sliceTtlSeconds)
+                && (cached.complete || cached.rows >= limit)) {
+            return cached;
+        }
+        Slice slice = load(collectionName, keys, limit);
+        slices.put(key, slice);
+        return slice;
+    }
+
+    /**
+     * 按主键区间分页拉取数据，直接读取protobuf中的基本类型数组拷贝到连续的float数组
+     */
+    private Slice load(String collectionName, CollectionMetadataService.KeyFields keys, int limit) {
+        long start = System.nanoTime();
+        int dimension = milvusService.getVectorDimension(collectionName);
+        long[] ids = new long[Math.min(limit, QUERY_PAGE)];
+        float[] data = new float[ids.length * dimension];
+        int rows = 0;
+        Long lastId = null;
+        boolean complete = false;
+        while (rows < limit) {
+            int page = Math.min(QUERY_PAGE, limit - rows);
+            R<QueryResults> response = milvusClient.query(QueryParam.newBuilder()
+                    .withCollectionName(collectionName)
+                    .withExpr(keys.afterExpr(lastId))
+                    .withOutFields(List.of(keys.primaryName(), keys.vectorName()))
+                    .withLimit((long) page)
+                    .build());
+            if (response.getStatus() != R.Status.Success.getCode()) {
+                throw new IllegalStateException(response.getMessage());
+            }
+            LongArray pageIds = null;
+            FloatArray pageVectors = null;
+            for (FieldData field : response.getData().getFieldsDataList()) {
+                if (keys.primaryName().equals(field.getFieldName())) {
+                    pageIds = field.getScalars().getLongData();
+                } else if (keys.vectorName().equals(field.getFieldName())) {
+                    pageVectors = field.getVectors().getFloatVector();
+                }
+            }
+            int count = pageIds == null ? 0 : pageIds.getDataCount();
+            if (count > 0) {
+                if (ids.length < rows + count) {
+                    int capacity = Math.min(limit, Math.max(rows + count, ids.length * 2));
+                    ids = Arrays.copyOf(ids, capacity);
+                    data = Arrays.copyOf(data, capacity * dimension);
+                }
+                long maxId = Long.MIN_VALUE;
+                for (int i = 0; i < count; i++) {
+                    long id = pageIds.getData(i);
+                    ids[rows + i] = id;
+                    maxId = Math.max(maxId, id);
+                }
+                int base = rows * dimension;
+                for (int i = 0; i < count * dimension; i++) {
+                    data[base + i] = pageVectors.getData(i);
+                }
+                rows += count;
+                lastId = maxId;
+            }
+            if (count < page) {
+                complete = true;
+                break;
+            }
+        }
+        long maxId = Long.MIN_VALUE;
+        for (int i = 0; i < rows; i++) {
+            maxId = Math.max(maxId, ids[i]);
+        }
+        log.info("基准测试数据加载完成: 集合={}, 行数={}, 维度={}, 耗时={}ms", collectionName, rows, dimension,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return new Slice(ids, data, dimension, rows, maxId, complete, System.currentTimeMillis());
+    }
+
+    private float[][] queries(Slice slice, BenchmarkRequest request) {
+        float[][] queries = new float[request.getQueries()][];
+        Random random = new Random(request.getSeed());
+        boolean sample = !"random".equalsIgnoreCase(request.getQuerySource());
+        for (int q = 0; q < queries.length; q++) {
+            if (sample) {
+                int row = random.nextInt(slice.rows);
+                queries[q] = Arrays.copyOfRange(slice.data, row * slice.dimension, (row + 1) * slice.dimension);
+            } else {
+                List<Float> vector = milvusService.generateRandomVector(slice.dimension);
+                queries[q] = new float[slice.dimension];
+                for (int d = 0; d < slice.dimension; d++) {
+                    queries[q][d] = vector.get(d);
+                }
+            }
+        }
+        return queries;
+    }
+
+    // ==================== 真实近邻 ====================
+
+    /**
+     * 按查询并行暴力计算topK真实近邻
+     */
+    private long[][] groundTruth(Slice slice, float[][] queries, int topK, String metricType) {
+        float[] norms = "COSINE".equals(metricType) ? slice.norms() : null;
+        long[][] truth = new long[queries.length][];
+        List<Future<?>> futures = new ArrayList<>();
+        int parts = Math.max(1, Math.min(maxConcurrency, Runtime.getRuntime().availableProcessors()));
+        int perPart = (queries.length + parts - 1) / parts;
+        for (int from = 0; from < queries.length; from += perPart) {
+            int begin = from;
+            int end = Math.min(queries.length, from + perPart);
+            futures.add(executor.submit(() -> {
+                for (int q = begin; q < end; q++) {
+                    truth[q] = exactTopK(slice, queries[q], topK, metricType, norms);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            await(future);
+        }
+        return truth;
+    }
+
+    /**
+     * 统一按"越小越近"打分：L2为距离平方，IP和COSINE取相反数
+     */
+    private static long[] exactTopK(Slice slice, float[] query, int topK, String metricType, float[] norms) {
+        int dimension = slice.dimension;
+        float[] data = slice.data;
+        float queryNorm = norms != null ? (float) Math.sqrt(VectorMath.dot(query, query, 0, dimension)) : 1f;
+        float[] bestScores = new float[topK];
+        int[] bestRows = new int[topK];
+        Arrays.fill(bestScores, Float.POSITIVE_INFINITY);
+        Arrays.fill(bestRows, -1);
+        for (int row = 0; row < slice.rows; row++) {
+            int offset = row * dimension;
+            float score;
+            if ("L2".equals(metricType)) {
+                score = VectorMath.l2(query, data, offset, dimension);
+            } else if (norms != null) {
+                float denominator = queryNorm * norms[row];
+                score = denominator == 0 ? Float.POSITIVE_INFINITY
+                        : -VectorMath.dot(query, data, offset, dimension) / denominator;
+            } else {
+                score = -VectorMath.dot(query, data, offset, dimension);
+            }
+            if (score < bestScores[topK - 1]) {
+                int i = topK - 1;
+                while (i > 0 && bestScores[i - 1] > score) {
+                    bestScores[i] = bestScores[i - 1];
+                    bestRows[i] = bestRows[i - 1];
+                    i--;
+                }
+                bestScores[i] = score;
+                bestRows[i] = row;
+            }
+        }
+        long[] ids = new long[topK];
+        int count = 0;
+        for (int row : bestRows) {
+            if (row >= 0) {
+                ids[count++] = slice.ids[row];
+            }
+        }
+        return count == topK ? ids : Arrays.copyOf(ids, count);
+    }
+
+    // ==================== 搜索测量 ====================
+
+    private void warmup(String collectionName, List<List<Float>> vectors, SearchRequest search) {
+        for (int q = 0; q < Math.min(warmupQueries, vectors.size()); q++) {
+            try {
+                searchService.search(collectionName, vectors.subList(q, q + 1), search);
+            } catch (Exception e) {
+                log.warn("基准测试预热搜索失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 以concurrency个工作线程逐条执行单向量搜索，记录每条查询的延迟与命中数
+     */
+    private BenchmarkResult.Run measure(String collectionName, List<List<Float>> vectors, long[][] truth,
+                                        SearchRequest search, int concurrency) {
+        int total = vectors.size();
+        long[] latencies = new long[total];
+        int[] hits = new int[total];
+        boolean[] failed = new boolean[total];
+        AtomicInteger next = new AtomicInteger();
+
+        long start = System.nanoTime();
+        List<Future<?>> workers = new ArrayList<>(concurrency);
+        for (int w = 0; w < concurrency; w++) {
+            workers.add(executor.submit(ClusterContext.wrap(() -> {
+                int q;
+                while ((q = next.getAndIncrement()) < total) {
+                    long begin = System.nanoTime();
+                    try {
+                        R<SearchResults> response = searchService.search(collectionName,
+                                vectors.subList(q, q + 1), search);
+                        latencies[q] = System.nanoTime() - begin;
+                        if (response.getStatus() != R.Status.Success.getCode()) {
+                            failed[q] = true;
+                            continue;
+                        }
+                        hits[q] = countHits(new SearchResultsWrapper(response.getData().getResults()), truth[q]);
+                    } catch (Exception e) {
+                        latencies[q] = System.nanoTime() - begin;
+                        failed[q] = true;
+                    }
+                }
+            })));
+        }
+        for (Future<?> worker : workers) {
+            await(worker);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] succeeded = new long[total];
+        int count = 0;
+        int errors = 0;
+        long hitTotal = 0;
+        long expectedTotal = 0;
+        for (int q = 0; q < total; q++) {
+            if (failed[q]) {
+                errors++;
+                continue;
+            }
+            succeeded[count++] = latencies[q];
+            hitTotal += hits[q];
+            expectedTotal += truth[q].length;
+        }
+        long[] sorted = Arrays.copyOf(succeeded, count);
+        Arrays.sort(sorted);
+
+        BenchmarkResult.Run run = new BenchmarkResult.Run();
+        run.setConcurrency(concurrency);
+        run.setErrors(errors);
+        run.setRecall(expectedTotal == 0 ? 0 : round((double) hitTotal / expectedTotal, 4));
+        run.setQps(round(count * 1e9 / elapsed, 1));
+        run.setMeanMs(count == 0 ? 0 : round(Arrays.stream(sorted).average().orElse(0) / 1e6, 3));
+        run.setP50Ms(percentile(sorted, 0.50));
+        run.setP95Ms(percentile(sorted, 0.95));
+        run.setP99Ms(percentile(sorted, 0.99));
+        return run;
+    }
+
+    private static int countHits(SearchResultsWrapper wrapper, long[] truth) {
+        int hits = 0;
+        for (SearchResultsWrapper.IDScore score : wrapper.getIDScore(0)) {
+            long id = score.getLongID();
+            for (long expected : truth) {
+                if (expected == id) {
+                    hits++;
+                    break;
+                }
+            }
+        }
+        return hits;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return round(sorted[Math.max(0, index)] / 1e6, 3);
+    }
+
+    private static double round(double value, int scale) {
+        double factor = Math.pow(10, scale);
+        return Math.round(value * factor) / factor;
+    }
+
+    private static List<Float> toList(float[] vector) {
+        List<Float> list = new ArrayList<>(vector.length);
+        for (float v : vector) {
+            list.add(v);
+        }
+        return list;
+    }
+
+    private String toJson(Map<String, Object> params) {
+        try {
+            return objectMapper.writeValueAsString(params);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("搜索参数格式错误", e);
+        }
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("基准测试被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, maxConcurrency), r -> {
+            Thread thread = new Thread(r, "milvus-benchmark-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 缓存的数据段：ids[i]对应data[i*dimension, (i+1)*dimension)
+     */
+    private static class Slice {
+        final long[] ids;
+        final float[] data;
+        final int dimension;
+        final int rows;
+        final long maxId;
+        final boolean complete;
+        final long loadedAt;
+        private volatile float[] norms;
+
+        Slice(long[] ids, float[] data, int dimension, int rows, long maxId, boolean complete, long loadedAt) {
+            this.ids = ids;
+            this.data = data;
+            this.dimension = dimension;
+            this.rows = rows;
+            this.maxId = maxId;
+            this.complete = complete;
+            this.loadedAt = loadedAt;
+        }
+
+        boolean isExpired(long ttlSeconds) {
+            return System.currentTimeMillis() - loadedAt > TimeUnit.SECONDS.toMillis(ttlSeconds);
+        }
+
+        /**
+         * 余弦距离所需的向量模长，首次使用时计算
+         */
+        float[] norms() {
+            float[] result = norms;
+            if (result == null) {
+                result = new float[rows];
+                for (int row = 0; row < rows; row++) {
+                    result[row] = (float) Math.sqrt(selfDot(row));
+                }
+                norms = result;
+            }
+            return result;
+        }
+
+        private float selfDot(int row) {
+            int offset = row * dimension;
+            float sum = 0f;
+            for (int i = 0; i < dimension; i++) {
+                float v = data[offset + i];
+                sum += v * v;
+            }
+            return sum;
+        }
+    }
+}
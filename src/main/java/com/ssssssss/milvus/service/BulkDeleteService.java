@@ -0,0 +1,191 @@
+package com.ssssssss.milvus.service;
+
+import com.ssssssss.milvus.config.ClusterContext;
+import com.ssssssss.milvus.model.BulkDeleteRequest;
+import com.ssssssss.milvus.model.BulkDeleteResult;
+import io.milvus.client.MilvusClient;
+import io.milvus.grpc.FlushResponse;
+import io.milvus.grpc.MutationResult;
+import io.milvus.param.R;
+import io.milvus.param.dml.DeleteParam;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量删除服务，主键列表按分片拼成 pk in [...] 表达式并发删除，结束后统一flush一次
+ *
+ * <p>主键字段名和类型从集合结构解析，VarChar主键按字符串转义。</p>
+ *
+ * @author 冰点
+ */
+@Service
+@Slf4j
+public class BulkDeleteService {
+
+    @Autowired
+    private MilvusClient milvusClient;
+
+    @Autowired
+    private CollectionMetadataService collectionMetadataService;
+
+    @Autowired
+    private FlushScheduler flushScheduler;
+
+    @Value("${milvus.bulk-delete.chunk-size:10000}")
+    private int chunkSize;
+
+    @Value("${milvus.bulk-delete.max-expr-bytes:1048576}")
+    private int maxExprBytes;
+
+    @Value("${milvus.bulk-delete.concurrency:4}")
+    private int concurrency;
+
+    private final Map<String, BulkDeleteResult> running = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+
+    /**
+     * 执行批量删除，同一集合同时只允许一个批量删除任务
+     */
+    public BulkDeleteResult delete(String collectionName, BulkDeleteRequest request) {
+        boolean hasIds = request.getIds() != null && !request.getIds().isEmpty();
+        boolean hasExpr = request.getExpr() != null && !request.getExpr().isBlank();
+        if (hasIds == hasExpr) {
+            throw new IllegalArgumentException("ids和expr必须且只能指定一个");
+        }
+        // 在占用集合之前解析主键，集合不存在或主键类型不受支持时直接拒绝
+        CollectionMetadataService.KeyFields keys = hasIds ? collectionMetadataService.getKeyFields(collectionName) : null;
+
+        String key = ClusterContext.scoped(collectionName);
+        BulkDeleteResult result = new BulkDeleteResult();
+        if (running.putIfAbsent(key, result) != null) {
+            throw new IllegalStateException("集合 " + collectionName + " 正在执行批量删除");
+        }
+        long start = System.nanoTime();
+        try {
+            if (hasExpr) {
+                result.setExpr(request.getExpr());
+                result.setChunks(1);
+                runChunk(collectionName, request.getExpr(), 0, null, 0, result);
+            } else {
+                deleteByIds(collectionName, keys, request.getIds(), result);
+            }
+
+            if (result.getDeletedRows() > 0) {
+                if (request.isFlush()) {
+                    R<FlushResponse> response = flushScheduler.flushNow(collectionName);
+                    result.setFlushed(response.getStatus() == R.Status.Success.getCode());
+                } else {
+                    flushScheduler.recordMutation(collectionName, result.getDeletedRows());
+                }
+            }
+        } finally {
+            result.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            result.setFinished(true);
+            running.remove(key, result);
+        }
+        log.info("批量删除完成: 集合={}, 删除行数={}, 分片={}, 失败分片={}, 耗时={}ms",
+                collectionName, result.getDeletedRows(), result.getChunks(), result.getFailures().size(),
+                result.getElapsedMs());
+        return result;
+    }
+
+    /**
+     * 获取集合正在执行的批量删除进度，没有时返回null
+     */
+    public BulkDeleteResult getProgress(String collectionName) {
+        return running.get(ClusterContext.scoped(collectionName));
+    }
+
+    private void deleteByIds(String collectionName, CollectionMetadataService.KeyFields keys, List<Object> ids,
+                             BulkDeleteResult result) {
+        // 分片同时受配置行数和表达式字节上限约束，保证单个请求远小于gRPC消息上限；
+        // VarChar主键长度不定，按转义后的实际长度累计，先全部转换以便提前拒绝无效的主键
+        List<String> literals = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            literals.add(keys.literal(id));
+        }
+        List<Integer> bounds = new ArrayList<>();
+        int bytes = 0;
+        int from = 0;
+        for (int i = 0; i < literals.size(); i++) {
+            int length = literals.get(i).length() + 1;
+            if (i > from && (i - from >= chunkSize || bytes + length > maxExprBytes)) {
+                bounds.add(i);
+                from = i;
+                bytes = 0;
+            }
+            bytes += length;
+        }
+        bounds.add(literals.size());
+        result.setRequestedIds(ids.size());
+        result.setChunks(bounds.size());
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(bounds.size());
+        from = 0;
+        for (int chunk = 0; chunk < bounds.size(); chunk++) {
+            List<Object> slice = ids.subList(from, bounds.get(chunk));
+            String expr = keys.primaryName() + " in [" + String.join(",", literals.subList(from, bounds.get(chunk))) + "]";
+            int index = chunk;
+            futures.add(CompletableFuture.runAsync(ClusterContext.wrap(() ->
+                    runChunk(collectionName, expr, index, slice.get(0), slice.size(), result)), executor));
+            from = bounds.get(chunk);
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private void runChunk(String collectionName, String expr, int chunk, Object firstId, int ids,
+                          BulkDeleteResult result) {
+        String error;
+        try {
+            R<MutationResult> response = milvusClient.delete(DeleteParam.newBuilder()
+                    .withCollectionName(collectionName)
+                    .withExpr(expr)
+                    .build());
+            if (response.getStatus() == R.Status.Success.getCode()) {
+                synchronized (result) {
+                    result.setDeletedRows(result.getDeletedRows() + response.getData().getDeleteCnt());
+                    result.setCompletedChunks(result.getCompletedChunks() + 1);
+                }
+                return;
+            }
+            error = response.getMessage();
+        } catch (Exception e) {
+            error = e.getMessage();
+        }
+        log.warn("批量删除分片失败: 集合={}, 分片={}, 错误={}", collectionName, chunk, error);
+        synchronized (result) {
+            result.getFailures().add(new BulkDeleteResult.ChunkFailure(chunk, firstId, ids, error));
+            result.setCompletedChunks(result.getCompletedChunks() + 1);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, concurrency), r -> {
+            Thread thread = new Thread(r, "milvus-delete-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
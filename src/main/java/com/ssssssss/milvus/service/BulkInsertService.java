@@ -0,0 +1,183 @@
+package com.ssssssss.milvus.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ssssssss.milvus.model.BulkInsertResult;
+import io.milvus.client.MilvusClient;
+import io.milvus.param.collection.FlushParam;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量插入服务，流式解析JSON数组或NDJSON请求体，按列攒批后流水线写入Milvus
+ *
+ * <p>每行格式为 {"id": 1, "vector": [0.1, 0.2, ...]}，字段名与集合结构中的主键和向量字段一致，
+ * VarChar主键写为字符串，autoId集合省略主键。</p>
+ *
+ * @author 冰点
+ */
+@Service
+@Slf4j
+public class BulkInsertService {
+
+    @Autowired
+    private MilvusClient milvusClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${milvus.bulk-insert.batch-size:1000}")
+    private int defaultBatchSize;
+
+    @Value("${milvus.bulk-insert.max-batch-bytes:4194304}")
+    private long maxBatchBytes;
+
+    @Value("${milvus.bulk-insert.max-in-flight:4}")
+    private int maxInFlight;
+
+    @Value("${milvus.bulk-insert.flush-interval-seconds:0}")
+    private long flushIntervalSeconds;
+
+    /**
+     * 从输入流批量插入数据
+     *
+     * @param keys      集合的主键和向量字段
+     * @param batchSize 每批行数，小于等于0时使用默认配置
+     * @param flush     结束后是否执行一次flush
+     * @return 插入结果，请求体解析中断时error不为空，中断前已解析的行仍会写入
+     */
+    public BulkInsertResult ingest(String collectionName, CollectionMetadataService.KeyFields keys, InputStream in,
+                                   int batchSize, boolean flush) throws IOException, InterruptedException {
+        int rowsPerBatch = batchSize > 0 ? batchSize : defaultBatchSize;
+        long start = System.nanoTime();
+        long lastFlush = start;
+        long flushIntervalNanos = TimeUnit.SECONDS.toNanos(flushIntervalSeconds);
+
+        BulkInsertResult result = new BulkInsertResult();
+        InsertPipeline pipeline = new InsertPipeline(milvusClient, collectionName, keys, maxInFlight);
+
+        List<Object> ids = new ArrayList<>(rowsPerBatch);
+        List<List<Float>> vectors = new ArrayList<>(rowsPerBatch);
+        long batchBytes = 0;
+        long rows = 0;
+        int dimensionHint = 128;
+
+        try {
+            try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+                JsonToken token = parser.nextToken();
+                // JSON数组时跳过外层括号，否则按NDJSON的多个根对象处理
+                if (token == JsonToken.START_ARRAY) {
+                    token = parser.nextToken();
+                }
+                while (token != null && token != JsonToken.END_ARRAY) {
+                    if (token != JsonToken.START_OBJECT) {
+                        throw new IllegalArgumentException("第" + (rows + 1) + "行不是JSON对象");
+                    }
+                    List<Float> vector = readRow(parser, keys, ids, rows, dimensionHint);
+                    dimensionHint = vector.size();
+                    vectors.add(vector);
+                    batchBytes += Long.BYTES + (long) vector.size() * Float.BYTES;
+                    rows++;
+
+                    if (vectors.size() >= rowsPerBatch || batchBytes >= maxBatchBytes) {
+                        pipeline.submit(keys.autoId() ? null : ids, vectors);
+                        ids = new ArrayList<>(rowsPerBatch);
+                        vectors = new ArrayList<>(rowsPerBatch);
+                        batchBytes = 0;
+                    }
+
+                    if (flushIntervalNanos > 0 && System.nanoTime() - lastFlush >= flushIntervalNanos) {
+                        pipeline.await();
+                        flush(collectionName);
+                        result.setFlushes(result.getFlushes() + 1);
+                        lastFlush = System.nanoTime();
+                    }
+                    token = parser.nextToken();
+                }
+            } catch (IllegalArgumentException | JsonProcessingException e) {
+                // 解析中断时已解析的行照常写入，返回部分结果和错误，由调用方按已写入行数记录变更
+                result.setError(e instanceof JsonProcessingException json
+                        ? "第" + (rows + 1) + "行JSON格式错误: " + json.getOriginalMessage() : e.getMessage());
+            }
+            pipeline.submit(keys.autoId() ? null : ids, vectors);
+        } finally {
+            pipeline.await();
+        }
+
+        if (flush && pipeline.getInsertedRows() > 0) {
+            flush(collectionName);
+            result.setFlushes(result.getFlushes() + 1);
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        result.setRows(rows);
+        result.setInsertedRows(pipeline.getInsertedRows());
+        result.setBatches(pipeline.getBatches());
+        result.setFailures(pipeline.getFailures());
+        result.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        result.setRowsPerSecond(elapsedNanos > 0 ? pipeline.getInsertedRows() * 1e9 / elapsedNanos : 0);
+        if (result.getError() != null) {
+            log.warn("批量插入解析中断: 集合={}, 已解析行数={}, 已写入行数={}, 错误={}", collectionName, rows,
+                    result.getInsertedRows(), result.getError());
+        } else {
+            log.info("批量插入完成: 集合={}, 行数={}, 批次={}, 失败批次={}, 耗时={}ms",
+                    collectionName, rows, result.getBatches(), result.getFailures().size(), result.getElapsedMs());
+        }
+        return result;
+    }
+
+    /**
+     * 读取一行数据，主键追加到ids中，返回向量；autoId集合忽略行中的主键
+     */
+    static List<Float> readRow(JsonParser parser, CollectionMetadataService.KeyFields keys, List<Object> ids,
+                               long rowIndex, int dimensionHint) throws IOException {
+        Object id = null;
+        List<Float> vector = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (keys.primaryName().equals(field) && !keys.autoId()) {
+                if (keys.stringKey() ? value != JsonToken.VALUE_STRING : value != JsonToken.VALUE_NUMBER_INT) {
+                    throw new IllegalArgumentException("第" + (rowIndex + 1) + "行的" + field
+                            + (keys.stringKey() ? "不是字符串" : "不是整数"));
+                }
+                id = keys.stringKey() ? parser.getText() : parser.getLongValue();
+            } else if (keys.vectorName().equals(field)) {
+                if (value != JsonToken.START_ARRAY) {
+                    throw new IllegalArgumentException("第" + (rowIndex + 1) + "行的" + field + "不是数组");
+                }
+                vector = new ArrayList<>(dimensionHint);
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    vector.add(parser.getFloatValue());
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if ((id == null && !keys.autoId()) || vector == null) {
+            throw new IllegalArgumentException("第" + (rowIndex + 1) + "行缺少" + keys.primaryName() + "或"
+                    + keys.vectorName() + "字段");
+        }
+        if (!keys.autoId()) {
+            ids.add(id);
+        }
+        return vector;
+    }
+
+    private void flush(String collectionName) {
+        FlushParam flushParam = FlushParam.newBuilder()
+                .addCollectionName(collectionName)
+                .build();
+        milvusClient.flush(flushParam);
+    }
+}
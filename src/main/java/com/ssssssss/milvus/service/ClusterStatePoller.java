@@ -0,0 +1,205 @@
+package com.ssssssss.milvus.service;
+
+import com.ssssssss.milvus.config.ClusterContext;
+import com.ssssssss.milvus.model.CollectionInfo;
+import com.ssssssss.milvus.model.CollectionState;
+import io.milvus.client.MilvusClient;
+import io.milvus.grpc.GetPersistentSegmentInfoResponse;
+import io.milvus.grpc.PersistentSegmentInfo;
+import io.milvus.grpc.SegmentState;
+import io.milvus.param.R;
+import io.milvus.param.control.GetPersistentSegmentInfoParam;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 集群状态轮询服务，按固定间隔为有浏览器订阅的集群拉取一次集合行数、加载状态和段信息，
+ * 与上次快照比较后只通过SSE推送变化的集合
+ *
+ * <p>每个集群每个间隔只轮询一次，与打开的页面数无关。订阅时先补发当前完整快照。</p>
+ *
+ * @author 冰点
+ */
+@Service
+@Slf4j
+public class ClusterStatePoller {
+
+    public static final String EVENT_NAME = "collections";
+
+    @Autowired
+    private MilvusClient milvusClient;
+
+    @Autowired
+    private CollectionMetadataService collectionMetadataService;
+
+    @Autowired
+    private SseBroadcaster broadcaster;
+
+    @Value("${milvus.cluster-state.interval-ms:5000}")
+    private long intervalMs;
+
+    private final Map<String, Map<String, CollectionState>> states = new ConcurrentHashMap<>();
+
+    private final AtomicLong polls = new AtomicLong();
+
+    private final AtomicLong events = new AtomicLong();
+
+    private volatile long lastPollMs;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 向新订阅的浏览器补发集群当前的完整快照，尚未轮询过时等待首次轮询推送
+     */
+    public void sendSnapshot(SseEmitter emitter, String clusterId) {
+        Map<String, CollectionState> current = states.get(clusterId);
+        if (current != null) {
+            broadcaster.send(emitter, EVENT_NAME, change(true, current.values(), List.of()));
+        }
+    }
+
+    /**
+     * 尽快轮询一次集群，用于后台任务结束后及时推送状态变化
+     */
+    public void pollSoon(String clusterId) {
+        scheduler.execute(() -> poll(clusterId));
+    }
+
+    /**
+     * 轮询次数、推送的变化事件数及上次轮询耗时
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("intervalMs", intervalMs);
+        stats.put("subscribers", broadcaster.subscribers(ClusterContext.current()));
+        stats.put("polls", polls.get());
+        stats.put("events", events.get());
+        stats.put("lastPollMs", lastPollMs);
+        Map<String, CollectionState> current = states.get(ClusterContext.current());
+        stats.put("collections", current != null ? current.values() : List.of());
+        return stats;
+    }
+
+    private void pollAll() {
+        Set<String> active = broadcaster.activeClusters();
+        // 没有订阅的集群丢弃快照，下次有人订阅时重新推送完整快照
+        states.keySet().retainAll(active);
+        for (String clusterId : active) {
+            poll(clusterId);
+        }
+    }
+
+    private void poll(String clusterId) {
+        if (broadcaster.subscribers(clusterId) == 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            ClusterContext.runIn(clusterId, () -> {
+                Map<String, CollectionState> next = new LinkedHashMap<>();
+                for (CollectionInfo info : collectionMetadataService.refreshOverview()) {
+                    next.put(info.getName(), load(info));
+                }
+                publish(clusterId, states.put(clusterId, next), next);
+            });
+        } catch (Exception e) {
+            // 拉取失败时保留上次快照，不推送
+            log.warn("轮询集群状态失败: {} {}", clusterId, e.getMessage());
+        } finally {
+            polls.incrementAndGet();
+            lastPollMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+    }
+
+    private void publish(String clusterId, Map<String, CollectionState> previous, Map<String, CollectionState> next) {
+        if (previous == null) {
+            broadcaster.publish(clusterId, EVENT_NAME, change(true, next.values(), List.of()));
+            events.incrementAndGet();
+            return;
+        }
+        List<CollectionState> changed = new ArrayList<>();
+        for (CollectionState state : next.values()) {
+            if (!state.equals(previous.get(state.getName()))) {
+                changed.add(state);
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        for (String name : previous.keySet()) {
+            if (!next.containsKey(name)) {
+                removed.add(name);
+            }
+        }
+        if (!changed.isEmpty() || !removed.isEmpty()) {
+            broadcaster.publish(clusterId, EVENT_NAME, change(false, changed, removed));
+            events.incrementAndGet();
+        }
+    }
+
+    private CollectionState load(CollectionInfo info) {
+        CollectionState state = new CollectionState();
+        state.setName(info.getName());
+        state.setDescription(info.getDescription());
+        state.setDimension(info.getDimension());
+        state.setCount(info.getCount());
+        state.setStatus(info.getStatus());
+        R<GetPersistentSegmentInfoResponse> response = milvusClient.getPersistentSegmentInfo(
+                GetPersistentSegmentInfoParam.newBuilder().withCollectionName(info.getName()).build());
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            log.warn("获取段信息失败: {} {}", info.getName(), response.getMessage());
+            return state;
+        }
+        for (PersistentSegmentInfo segment : response.getData().getInfosList()) {
+            if (segment.getState() == SegmentState.Dropped) {
+                continue;
+            }
+            state.setSegments(state.getSegments() + 1);
+            if (segment.getState() == SegmentState.Growing) {
+                state.setGrowingSegments(state.getGrowingSegments() + 1);
+            } else {
+                state.setSealedRows(state.getSealedRows() + segment.getNumRows());
+            }
+        }
+        return state;
+    }
+
+    /**
+     * 变化事件，full为true时changed为完整的集合列表
+     */
+    private static Map<String, Object> change(boolean full, Collection<CollectionState> changed,
+                                              List<String> removed) {
+        Map<String, Object> change = new LinkedHashMap<>();
+        change.put("full", full);
+        change.put("changed", changed);
+        change.put("removed", removed);
+        return change;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "milvus-cluster-state-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::pollAll, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,527 @@
+package com.ssssssss.milvus.service;
+
+import com.ssssssss.milvus.config.ClusterContext;
+import com.ssssssss.milvus.model.CollectionInfo;
+import io.milvus.client.MilvusClient;
+import io.milvus.grpc.*;
+import io.milvus.param.R;
+import io.milvus.param.collection.DescribeCollectionParam;
+import io.milvus.param.collection.GetLoadStateParam;
+import io.milvus.param.collection.HasCollectionParam;
+import io.milvus.param.collection.ShowCollectionsParam;
+import io.milvus.param.dml.InsertParam;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 集合元数据服务，负责并发拉取集合概览并缓存集合结构信息
+ *
+ * <p>集合结构（维度、描述等）按TTL缓存，集合概览采用stale-while-revalidate策略：
+ * 快照过期后先返回旧快照，同时在后台刷新。同一集群同一时间只有一次全量刷新，没有快照时并发调用方等待同一次刷新；
+ * 单个集合变化只使快照中该集合的条目失效，下次读取时单独重新拉取；全量刷新期间发生的失效同样只标记对应条目，不丢弃刷新结果。</p>
+ *
+ * @author 冰点
+ */
+@Service
+@Slf4j
+public class CollectionMetadataService {
+
+    private static final int DEFAULT_DIMENSION = 128;
+
+    private static final String DEFAULT_PRIMARY_FIELD = "id";
+
+    private static final String DEFAULT_VECTOR_FIELD = "vector";
+
+    @Autowired
+    private MilvusClient milvusClient;
+
+    @Autowired
+    private RowCountService rowCountService;
+
+    @Value("${milvus.metadata.concurrency:8}")
+    private int concurrency;
+
+    @Value("${milvus.metadata.schema-ttl-seconds:300}")
+    private long schemaTtlSeconds;
+
+    @Value("${milvus.metadata.overview-ttl-seconds:10}")
+    private long overviewTtlSeconds;
+
+    private final Map<String, CachedSchema> schemaCache = new ConcurrentHashMap<>();
+
+    private final Map<String, CompletableFuture<List<CollectionInfo>>> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<String, Invalidations> invalidations = new ConcurrentHashMap<>();
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+
+    /**
+     * 获取集合概览，快照过期时返回旧数据并异步刷新
+     */
+    public List<CollectionInfo> getOverview() {
+        String clusterId = ClusterContext.current();
+        Snapshot current = snapshots.get(clusterId);
+        if (current == null) {
+            try {
+                return refreshShared().join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        if (!current.stale.isEmpty()) {
+            current = repair(clusterId, current);
+        }
+        if (current.isExpired(overviewTtlSeconds)) {
+            refreshAsync();
+        }
+        return current.collections;
+    }
+
+    /**
+     * 同步重建集合概览快照
+     */
+    public List<CollectionInfo> refreshOverview() {
+        String clusterId = ClusterContext.current();
+        Invalidations state = invalidations(clusterId);
+        long started = state.generation.get();
+        List<CollectionInfo> collections = loadOverview();
+        // 刷新期间失效的集合在新快照中标记为失效，下次读取时单独重新拉取，其余条目照常保存；
+        // 与invalidate在同一个键上串行执行，不会漏掉刷新期间的失效
+        snapshots.compute(clusterId, (key, previous) -> {
+            if (state.clearedAt > started) {
+                // 刷新期间清空过全部缓存，本次结果不保存
+                return previous;
+            }
+            return new Snapshot(collections, state.invalidatedSince(started), System.nanoTime());
+        });
+        return collections;
+    }
+
+    /**
+     * 获取集合结构，命中缓存时不发起RPC
+     */
+    public CollectionSchema getSchema(String collectionName) {
+        CachedSchema cached = schemaCache.get(ClusterContext.scoped(collectionName));
+        if (cached != null && !cached.isExpired(schemaTtlSeconds)) {
+            return cached.schema;
+        }
+        DescribeCollectionParam describeParam = DescribeCollectionParam.newBuilder()
+                .withCollectionName(collectionName)
+                .build();
+        R<DescribeCollectionResponse> response = milvusClient.describeCollection(describeParam);
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            log.warn("获取集合结构失败: {} {}", collectionName, response.getMessage());
+            return null;
+        }
+        CollectionSchema schema = response.getData().getSchema();
+        schemaCache.put(ClusterContext.scoped(collectionName), new CachedSchema(schema));
+        return schema;
+    }
+
+    /**
+     * 获取集合的向量维度
+     */
+    public int getDimension(String collectionName) {
+        try {
+            CollectionSchema schema = getSchema(collectionName);
+            if (schema != null) {
+                for (FieldSchema field : schema.getFieldsList()) {
+                    if (field.getDataType() == DataType.FloatVector) {
+                        return field.getTypeParamsList().stream()
+                                .filter(param -> param.getKey().equals("dim"))
+                                .map(param -> Integer.parseInt(param.getValue()))
+                                .findFirst().orElse(DEFAULT_DIMENSION);
+                    }
+                }
+            }
+            return DEFAULT_DIMENSION;
+        } catch (Exception e) {
+            log.error("获取向量维度失败", e);
+            return DEFAULT_DIMENSION;
+        }
+    }
+
+    /**
+     * 获取主键字段，集合不存在时返回null
+     */
+    public FieldSchema getPrimaryField(String collectionName) {
+        CollectionSchema schema = getSchema(collectionName);
+        if (schema != null) {
+            for (FieldSchema field : schema.getFieldsList()) {
+                if (field.getIsPrimaryKey()) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取主键字段名，集合不存在时返回默认的id
+     */
+    public String getPrimaryFieldName(String collectionName) {
+        FieldSchema field = getPrimaryField(collectionName);
+        return field != null ? field.getName() : DEFAULT_PRIMARY_FIELD;
+    }
+
+    /**
+     * 获取向量字段名，集合不存在时返回默认的vector
+     */
+    public String getVectorFieldName(String collectionName) {
+        CollectionSchema schema = getSchema(collectionName);
+        if (schema != null) {
+            for (FieldSchema field : schema.getFieldsList()) {
+                if (field.getDataType() == DataType.FloatVector) {
+                    return field.getName();
+                }
+            }
+        }
+        return DEFAULT_VECTOR_FIELD;
+    }
+
+    /**
+     * 获取全部字段名，includeVectors为false时不含向量字段
+     */
+    public List<String> getFieldNames(String collectionName, boolean includeVectors) {
+        CollectionSchema schema = getSchema(collectionName);
+        if (schema == null) {
+            return includeVectors ? List.of(DEFAULT_PRIMARY_FIELD, DEFAULT_VECTOR_FIELD) : List.of(DEFAULT_PRIMARY_FIELD);
+        }
+        List<String> names = new ArrayList<>(schema.getFieldsCount());
+        for (FieldSchema field : schema.getFieldsList()) {
+            boolean vector = field.getDataType() == DataType.FloatVector || field.getDataType() == DataType.BinaryVector;
+            if (includeVectors || !vector) {
+                names.add(field.getName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 获取读写数据用的主键和向量字段
+     *
+     * <p>集合不存在、主键不是Int64或VarChar、或没有FloatVector字段时抛出IllegalArgumentException，
+     * 调用方据此在开始读写前拒绝请求。</p>
+     */
+    public KeyFields getKeyFields(String collectionName) {
+        CollectionSchema schema = getSchema(collectionName);
+        if (schema == null) {
+            throw new IllegalArgumentException("集合不存在: " + collectionName);
+        }
+        FieldSchema primary = null;
+        FieldSchema vector = null;
+        for (FieldSchema field : schema.getFieldsList()) {
+            if (field.getIsPrimaryKey()) {
+                primary = field;
+            } else if (vector == null && field.getDataType() == DataType.FloatVector) {
+                vector = field;
+            }
+        }
+        if (primary == null || (primary.getDataType() != DataType.Int64 && primary.getDataType() != DataType.VarChar)) {
+            throw new IllegalArgumentException("集合 " + collectionName + " 的主键类型不受支持，只支持Int64或VarChar");
+        }
+        if (vector == null) {
+            throw new IllegalArgumentException("集合 " + collectionName + " 没有FloatVector字段");
+        }
+        return new KeyFields(primary.getName(), primary.getDataType() == DataType.VarChar,
+                primary.getAutoID(), vector.getName());
+    }
+
+    /**
+     * 集合发生结构或状态变化时调用，清除结构缓存并使概览快照中该集合的条目失效
+     */
+    public void invalidate(String collectionName) {
+        String clusterId = ClusterContext.current();
+        schemaCache.remove(ClusterContext.scoped(collectionName));
+        Invalidations state = invalidations(clusterId);
+        state.invalidatedAt.put(collectionName, state.generation.incrementAndGet());
+        snapshots.computeIfPresent(clusterId, (key, snapshot) -> snapshot.markStale(collectionName));
+    }
+
+    /**
+     * 清空全部缓存，进行中的全量刷新结果不再保存
+     */
+    public void invalidateAll() {
+        schemaCache.clear();
+        for (Invalidations state : invalidations.values()) {
+            state.clearedAt = state.generation.incrementAndGet();
+        }
+        snapshots.clear();
+    }
+
+    private Invalidations invalidations(String clusterId) {
+        return invalidations.computeIfAbsent(clusterId, key -> new Invalidations());
+    }
+
+    private void refreshAsync() {
+        refreshShared().exceptionally(e -> {
+            log.error("后台刷新集合概览失败", e);
+            return null;
+        });
+    }
+
+    /**
+     * 发起或加入当前集群进行中的全量刷新
+     */
+    private CompletableFuture<List<CollectionInfo>> refreshShared() {
+        String clusterId = ClusterContext.current();
+        CompletableFuture<List<CollectionInfo>> created = new CompletableFuture<>();
+        CompletableFuture<List<CollectionInfo>> existing = inFlight.putIfAbsent(clusterId, created);
+        if (existing != null) {
+            return existing;
+        }
+        // 协调任务不占用元数据线程池，避免等待子任务时线程耗尽
+        CompletableFuture.runAsync(ClusterContext.wrap(() -> {
+            try {
+                created.complete(refreshOverview());
+            } catch (Throwable e) {
+                created.completeExceptionally(e);
+            } finally {
+                inFlight.remove(clusterId, created);
+            }
+        }));
+        return created;
+    }
+
+    /**
+     * 只重新拉取快照中已失效的集合，已删除的集合从快照中去掉，新建的集合追加到末尾
+     */
+    private Snapshot repair(String clusterId, Snapshot current) {
+        Map<String, CollectionInfo> byName = new LinkedHashMap<>();
+        for (CollectionInfo info : current.collections) {
+            byName.put(info.getName(), info);
+        }
+        for (String name : current.stale) {
+            R<Boolean> exists = milvusClient.hasCollection(HasCollectionParam.newBuilder()
+                    .withCollectionName(name)
+                    .build());
+            if (exists.getStatus() != R.Status.Success.getCode()) {
+                // 无法确认时保留旧条目，等待下次全量刷新
+                log.warn("检查集合存在性失败: {} {}", name, exists.getMessage());
+                continue;
+            }
+            if (Boolean.TRUE.equals(exists.getData())) {
+                byName.put(name, loadCollectionInfo(name));
+            } else {
+                byName.remove(name);
+            }
+        }
+        Snapshot repaired = current.repaired(Collections.unmodifiableList(new ArrayList<>(byName.values())));
+        // 期间快照被替换或又有集合失效时不覆盖，本次结果只返回给当前调用方
+        snapshots.replace(clusterId, current, repaired);
+        return repaired;
+    }
+
+    private List<CollectionInfo> loadOverview() {
+        ShowCollectionsParam showParam = ShowCollectionsParam.newBuilder().build();
+        R<ShowCollectionsResponse> showResponse = milvusClient.showCollections(showParam);
+
+        // 失败时抛出而不是返回空列表，避免空结果被当作快照缓存或被推送为集合全部删除
+        if (showResponse.getStatus() != R.Status.Success.getCode()) {
+            throw new IllegalStateException("获取集合列表失败: " + showResponse.getMessage());
+        }
+
+        List<String> names = showResponse.getData().getCollectionNamesList();
+        List<CompletableFuture<CollectionInfo>> futures = new ArrayList<>(names.size());
+        for (String name : names) {
+            futures.add(CompletableFuture.supplyAsync(ClusterContext.wrap(() -> loadCollectionInfo(name)), executor));
+        }
+
+        List<CollectionInfo> collections = new ArrayList<>(names.size());
+        for (CompletableFuture<CollectionInfo> future : futures) {
+            collections.add(future.join());
+        }
+        return Collections.unmodifiableList(collections);
+    }
+
+    private CollectionInfo loadCollectionInfo(String name) {
+        try {
+            return fetchCollectionInfo(name);
+        } catch (Exception e) {
+            log.error("获取集合信息失败: {}", name, e);
+            return new CollectionInfo(name, "", DEFAULT_DIMENSION, 0, "not_loaded");
+        }
+    }
+
+    private CollectionInfo fetchCollectionInfo(String name) {
+        // 行数走共享缓存
+        long rowCount = rowCountService.getRowCount(name);
+
+        // 获取加载状态
+        String state = "not_loaded";
+        GetLoadStateParam loadStateParam = GetLoadStateParam.newBuilder()
+                .withCollectionName(name)
+                .build();
+        R<GetLoadStateResponse> loadStateResponse = milvusClient.getLoadState(loadStateParam);
+        if (loadStateResponse.getStatus() == R.Status.Success.getCode() &&
+                loadStateResponse.getData().getState() == LoadState.LoadStateLoaded) {
+            state = "loaded";
+        }
+
+        // 结构信息走缓存
+        CollectionSchema schema = getSchema(name);
+        String description = schema != null ? schema.getDescription() : "";
+
+        return new CollectionInfo(name, description, getDimension(name), rowCount, state);
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, concurrency), r -> {
+            Thread thread = new Thread(r, "milvus-metadata-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 集合的主键和向量字段，stringKey为true时主键是VarChar，autoId为true时主键由Milvus生成
+     */
+    public record KeyFields(String primaryName, boolean stringKey, boolean autoId, String vectorName) {
+
+        /**
+         * 匹配全部记录的表达式
+         */
+        public String allExpr() {
+            return stringKey ? primaryName + " != \"\"" : primaryName + " >= 0";
+        }
+
+        /**
+         * 主键大于lastKey的表达式，用于按主键翻页，lastKey为null时匹配全部记录
+         */
+        public String afterExpr(Object lastKey) {
+            return lastKey == null ? allExpr() : primaryName + " > " + literal(lastKey);
+        }
+
+        public String equalsExpr(Object key) {
+            return primaryName + " == " + literal(key);
+        }
+
+        /**
+         * 主键值在过滤表达式中的写法，VarChar加引号并转义，Int64校验为整数
+         */
+        public String literal(Object key) {
+            if (stringKey) {
+                return "\"" + key.toString().replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+            }
+            return String.valueOf(parseKey(key.toString()));
+        }
+
+        /**
+         * 把请求中的主键文本转换为Long或String
+         */
+        public Object parseKey(String raw) {
+            if (stringKey) {
+                return raw;
+            }
+            try {
+                return Long.parseLong(raw.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("主键 " + primaryName + " 为Int64，无效的值: " + raw);
+            }
+        }
+
+        /**
+         * 插入的列，autoId时不发送主键列，ids可以为null
+         */
+        public List<InsertParam.Field> insertFields(List<?> ids, List<List<Float>> vectors) {
+            if (autoId) {
+                return List.of(new InsertParam.Field(vectorName, vectors));
+            }
+            if (ids == null || ids.size() != vectors.size()) {
+                throw new IllegalArgumentException("主键 " + primaryName + " 的数量与向量数量不一致");
+            }
+            return List.of(new InsertParam.Field(primaryName, ids), new InsertParam.Field(vectorName, vectors));
+        }
+    }
+
+    private static final class CachedSchema {
+        private final CollectionSchema schema;
+        private final long loadedAt = System.nanoTime();
+
+        private CachedSchema(CollectionSchema schema) {
+            this.schema = schema;
+        }
+
+        private boolean isExpired(long ttlSeconds) {
+            return System.nanoTime() - loadedAt > TimeUnit.SECONDS.toNanos(ttlSeconds);
+        }
+    }
+
+    /**
+     * 一个集群的失效序号，只在本集群内递增，其他集群的失效不影响本集群的刷新
+     */
+    private static final class Invalidations {
+        private final AtomicLong generation = new AtomicLong();
+        /**
+         * 集合最近一次失效时的序号
+         */
+        private final Map<String, Long> invalidatedAt = new ConcurrentHashMap<>();
+        private volatile long clearedAt;
+
+        /**
+         * 序号started之后失效的集合
+         */
+        private Set<String> invalidatedSince(long started) {
+            Set<String> names = new HashSet<>();
+            invalidatedAt.forEach((name, at) -> {
+                if (at > started) {
+                    names.add(name);
+                }
+            });
+            return Set.copyOf(names);
+        }
+    }
+
+    private static final class Snapshot {
+        private final List<CollectionInfo> collections;
+        private final Set<String> stale;
+        private final long builtAt;
+
+        private Snapshot(List<CollectionInfo> collections, Set<String> stale, long builtAt) {
+            this.collections = collections;
+            this.stale = stale;
+            this.builtAt = builtAt;
+        }
+
+        private Snapshot markStale(String collectionName) {
+            Set<String> next = new HashSet<>(stale);
+            next.add(collectionName);
+            return new Snapshot(collections, Set.copyOf(next), builtAt);
+        }
+
+        /**
+         * 失效条目重新拉取后的快照，保留原构建时间，过期后仍做全量刷新
+         */
+        private Snapshot repaired(List<CollectionInfo> collections) {
+            return new Snapshot(collections, Set.of(), builtAt);
+        }
+
+        private boolean isExpired(long ttlSeconds) {
+            return System.nanoTime() - builtAt > TimeUnit.SECONDS.toNanos(ttlSeconds);
+        }
+    }
+}
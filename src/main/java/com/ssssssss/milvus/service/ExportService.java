@@ -0,0 +1,309 @@
+package com.ssssssss.milvus.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ssssssss.milvus.config.ClusterContext;
+import io.milvus.client.MilvusClient;
+import io.milvus.grpc.FieldData;
+import io.milvus.grpc.FloatArray;
+import io.milvus.grpc.LongArray;
+import io.milvus.grpc.QueryResults;
+import io.milvus.grpc.StringArray;
+import io.milvus.param.R;
+import io.milvus.param.dml.QueryParam;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 集合导出服务，按主键区间分批查询并直接写入输出流
+ *
+ * <p>写出当前批次时预取下一批，内存中最多保留两批数据；客户端读得慢时写操作阻塞，
+ * 预取随之停止，不会在JVM中堆积数据。</p>
+ *
+ * <p>二进制格式为小端编码：16字节头部（魔数"MVX1"、int32维度、两个int32保留位），
+ * 之后每个块为int32行数、行数个int64 id、行数×维度个float32，行数为0的块表示结束，只支持Int64主键。</p>
+ *
+ * <p>NDJSON每行的字段名与集合结构中的主键和向量字段一致。</p>
+ *
+ * @author 冰点
+ */
+@Service
+@Slf4j
+public class ExportService {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_BINARY = "binary";
+
+    /**
+     * Milvus单次query的limit上限
+     */
+    private static final int MAX_BATCH_SIZE = 16384;
+
+    private static final int MAGIC = 0x3158564D; // "MVX1" 小端
+
+    @Autowired
+    private MilvusClient milvusClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${milvus.export.batch-size:1000}")
+    private int defaultBatchSize;
+
+    @Value("${milvus.export.concurrency:4}")
+    private int concurrency;
+
+    private ExecutorService executor;
+
+    /**
+     * 导出集合到输出流
+     *
+     * @param clusterId      发起请求时的集群，写出在异步线程上执行
+     * @param keys           集合的主键和向量字段，由调用方在返回响应前解析，结构不受支持时直接拒绝请求
+     * @param batchSize      每批行数，小于等于0时使用默认配置
+     * @param includeVectors 是否导出向量
+     */
+    public void export(String clusterId, String collectionName, CollectionMetadataService.KeyFields keys,
+                       String format, int batchSize, boolean includeVectors, OutputStream out) throws IOException {
+        boolean binary = FORMAT_BINARY.equals(format);
+        if (binary && keys.stringKey()) {
+            throw new IllegalArgumentException("二进制导出只支持Int64主键");
+        }
+        int limit = Math.min(MAX_BATCH_SIZE, batchSize > 0 ? batchSize : defaultBatchSize);
+        List<String> outputFields = includeVectors
+                ? List.of(keys.primaryName(), keys.vectorName()) : List.of(keys.primaryName());
+        BatchWriter writer = binary ? new BinaryWriter(out) : new NdjsonWriter(out, keys);
+
+        ClusterContext.set(clusterId);
+        long rows = 0;
+        long start = System.nanoTime();
+        try {
+            Batch batch = fetch(collectionName, keys, outputFields, null, limit);
+            while (batch.size() > 0) {
+                CompletableFuture<Batch> next = null;
+                if (batch.size() >= limit) {
+                    Object lastKey = batch.lastKey();
+                    next = CompletableFuture.supplyAsync(ClusterContext.wrap(
+                            () -> fetch(collectionName, keys, outputFields, lastKey, limit)), executor);
+                }
+                try {
+                    writer.write(batch);
+                } catch (IOException e) {
+                    if (next != null) {
+                        next.cancel(true);
+                    }
+                    throw e;
+                }
+                rows += batch.size();
+                batch = next != null ? join(next) : Batch.EMPTY;
+            }
+            writer.finish();
+        } finally {
+            ClusterContext.clear();
+        }
+        log.info("导出集合完成: 集合={}, 格式={}, 行数={}, 耗时={}ms", collectionName, format, rows,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private Batch fetch(String collectionName, CollectionMetadataService.KeyFields keys, List<String> outputFields,
+                        Object lastKey, int limit) {
+        R<QueryResults> response = milvusClient.query(QueryParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withExpr(keys.afterExpr(lastKey))
+                .withOutFields(outputFields)
+                .withLimit((long) limit)
+                .build());
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            throw new IllegalStateException(response.getMessage());
+        }
+        LongArray ids = null;
+        StringArray stringIds = null;
+        FloatArray vectors = null;
+        int dimension = 0;
+        for (FieldData field : response.getData().getFieldsDataList()) {
+            if (keys.primaryName().equals(field.getFieldName())) {
+                if (keys.stringKey()) {
+                    stringIds = field.getScalars().getStringData();
+                } else {
+                    ids = field.getScalars().getLongData();
+                }
+            } else if (keys.vectorName().equals(field.getFieldName())) {
+                vectors = field.getVectors().getFloatVector();
+                dimension = (int) field.getVectors().getDim();
+            }
+        }
+        return ids == null && stringIds == null ? Batch.EMPTY : new Batch(ids, stringIds, vectors, dimension);
+    }
+
+    private static Batch join(CompletableFuture<Batch> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 一批查询结果，直接读取protobuf中的基本类型数组，避免装箱；Int64主键时stringIds为null，VarChar主键时ids为null
+     */
+    private record Batch(LongArray ids, StringArray stringIds, FloatArray vectors, int dimension) {
+
+        private static final Batch EMPTY = new Batch(LongArray.getDefaultInstance(), null, null, 0);
+
+        int size() {
+            return ids != null ? ids.getDataCount() : stringIds.getDataCount();
+        }
+
+        /**
+         * 本批最大的主键，作为下一批的起点
+         */
+        Object lastKey() {
+            if (ids == null) {
+                String max = null;
+                for (int i = 0; i < size(); i++) {
+                    String key = stringIds.getData(i);
+                    max = max == null || key.compareTo(max) > 0 ? key : max;
+                }
+                return max;
+            }
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < size(); i++) {
+                max = Math.max(max, ids.getData(i));
+            }
+            return max;
+        }
+    }
+
+    private interface BatchWriter {
+        void write(Batch batch) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private class NdjsonWriter implements BatchWriter {
+        private final OutputStream out;
+        private final JsonGenerator generator;
+        private final CollectionMetadataService.KeyFields keys;
+
+        NdjsonWriter(OutputStream out, CollectionMetadataService.KeyFields keys) throws IOException {
+            this.out = out;
+            this.keys = keys;
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(Batch batch) throws IOException {
+            int dimension = batch.dimension();
+            for (int i = 0; i < batch.size(); i++) {
+                generator.writeStartObject();
+                if (batch.ids() != null) {
+                    generator.writeNumberField(keys.primaryName(), batch.ids().getData(i));
+                } else {
+                    generator.writeStringField(keys.primaryName(), batch.stringIds().getData(i));
+                }
+                if (batch.vectors() != null) {
+                    generator.writeArrayFieldStart(keys.vectorName());
+                    int offset = i * dimension;
+                    for (int d = 0; d < dimension; d++) {
+                        generator.writeNumber(batch.vectors().getData(offset + d));
+                    }
+                    generator.writeEndArray();
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+            // 每批刷新到客户端，客户端读得慢时在此阻塞
+            generator.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.close();
+            out.flush();
+        }
+    }
+
+    private static class BinaryWriter implements BatchWriter {
+        private final OutputStream out;
+        private ByteBuffer buffer = ByteBuffer.allocate(0);
+        private boolean headerWritten;
+
+        BinaryWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(Batch batch) throws IOException {
+            if (!headerWritten) {
+                writeHeader(batch.dimension());
+            }
+            int size = batch.size();
+            int dimension = batch.vectors() != null ? batch.dimension() : 0;
+            int bytes = Integer.BYTES + size * Long.BYTES + size * dimension * Float.BYTES;
+            if (buffer.capacity() < bytes) {
+                buffer = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            buffer.clear();
+            buffer.putInt(size);
+            for (int i = 0; i < size; i++) {
+                buffer.putLong(batch.ids().getData(i));
+            }
+            for (int i = 0, n = size * dimension; i < n; i++) {
+                buffer.putFloat(batch.vectors().getData(i));
+            }
+            out.write(buffer.array(), 0, buffer.position());
+            out.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (!headerWritten) {
+                writeHeader(0);
+            }
+            out.write(new byte[Integer.BYTES]);
+            out.flush();
+        }
+
+        private void writeHeader(int dimension) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(dimension).putInt(0).putInt(0);
+            out.write(header.array());
+            headerWritten = true;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, concurrency), r -> {
+            Thread thread = new Thread(r, "milvus-export-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
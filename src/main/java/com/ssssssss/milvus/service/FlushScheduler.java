@@ -0,0 +1,197 @@
+package com.ssssssss.milvus.service;
+
+import com.ssssssss.milvus.config.ClusterContext;
+import io.milvus.client.MilvusClient;
+import io.milvus.grpc.FlushResponse;
+import io.milvus.param.R;
+import io.milvus.param.collection.FlushParam;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按集合合并flush的调度器，写入和删除只登记待刷新行数，由后台线程在时间窗口到期或行数达到阈值时统一flush
+ *
+ * <p>后台flush失败时按时间窗口指数退避重试，连续失败达到上限后丢弃该集合的待刷新记录，
+ * 数据仍由Milvus按自身策略落盘。</p>
+ *
+ * @author 冰点
+ */
+@Service
+@Slf4j
+public class FlushScheduler {
+
+    @Autowired
+    private MilvusClient milvusClient;
+
+    @Value("${milvus.flush.window-ms:5000}")
+    private long windowMs;
+
+    @Value("${milvus.flush.row-threshold:10000}")
+    private long rowThreshold;
+
+    @Value("${milvus.flush.max-retries:5}")
+    private int maxRetries;
+
+    @Value("${milvus.flush.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 登记一次变更，必要时安排后台flush
+     */
+    public void recordMutation(String collectionName, long rows) {
+        Pending entry = pending.computeIfAbsent(ClusterContext.scoped(collectionName),
+                key -> new Pending(ClusterContext.current(), collectionName));
+        long total = entry.rows.addAndGet(Math.max(rows, 1));
+        if (total >= rowThreshold) {
+            schedule(entry, 0);
+        } else {
+            schedule(entry, windowMs);
+        }
+    }
+
+    /**
+     * 立即flush集合并清空待刷新计数
+     */
+    public R<FlushResponse> flushNow(String collectionName) {
+        Pending entry = pending.get(ClusterContext.scoped(collectionName));
+        long rows = entry != null ? entry.rows.getAndSet(0) : 0;
+        R<FlushResponse> response = flush(collectionName);
+        if (entry != null) {
+            if (response.getStatus() == R.Status.Success.getCode()) {
+                entry.failures.set(0);
+            } else {
+                entry.rows.addAndGet(rows);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * 获取集合待刷新的变更行数
+     */
+    public long getPendingRows(String collectionName) {
+        Pending entry = pending.get(ClusterContext.scoped(collectionName));
+        return entry != null ? entry.rows.get() : 0;
+    }
+
+    /**
+     * 获取当前集群所有集合的待刷新行数
+     */
+    public Map<String, Long> getPendingRows() {
+        String clusterId = ClusterContext.current();
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Pending entry : pending.values()) {
+            if (entry.clusterId.equals(clusterId) && entry.rows.get() > 0) {
+                result.put(entry.collectionName, entry.rows.get());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 集合被删除时丢弃待刷新记录
+     */
+    public void discard(String collectionName) {
+        pending.remove(ClusterContext.scoped(collectionName));
+    }
+
+    private void schedule(Pending entry, long delayMs) {
+        if (delayMs == 0) {
+            scheduler.execute(() -> runFlush(entry));
+        } else if (entry.scheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> {
+                entry.scheduled.set(false);
+                runFlush(entry);
+            }, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void runFlush(Pending entry) {
+        long rows = entry.rows.getAndSet(0);
+        if (rows == 0) {
+            return;
+        }
+        ClusterContext.runIn(entry.clusterId, () -> {
+            try {
+                R<FlushResponse> response = flush(entry.collectionName);
+                if (response.getStatus() == R.Status.Success.getCode()) {
+                    entry.failures.set(0);
+                } else {
+                    retry(entry, rows, response.getMessage());
+                }
+            } catch (Exception e) {
+                retry(entry, rows, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 按失败次数指数退避重新安排flush，连续失败达到上限后丢弃记录，只记录一次错误日志
+     */
+    private void retry(Pending entry, long rows, String error) {
+        int failures = entry.failures.incrementAndGet();
+        if (failures > maxRetries) {
+            pending.remove(ClusterContext.scoped(entry.collectionName), entry);
+            log.error("后台flush连续失败{}次，放弃刷新: 集合={}, 待刷新行数={}, 错误={}", failures, entry.collectionName,
+                    rows + entry.rows.getAndSet(0), error);
+            return;
+        }
+        log.warn("后台flush失败，第{}次重试: {} {}", failures, entry.collectionName, error);
+        entry.rows.addAndGet(rows);
+        long delayMs = Math.min(maxBackoffMs, windowMs << Math.min(failures - 1, 20));
+        schedule(entry, Math.max(1, delayMs));
+    }
+
+    private R<FlushResponse> flush(String collectionName) {
+        FlushParam flushParam = FlushParam.newBuilder()
+                .addCollectionName(collectionName)
+                .build();
+        return milvusClient.flush(flushParam);
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        scheduler = Executors.newScheduledThreadPool(2, r -> {
+            Thread thread = new Thread(r, "milvus-flush-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    private static final class Pending {
+        private final String clusterId;
+        private final String collectionName;
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private final AtomicInteger failures = new AtomicInteger();
+
+        private Pending(String clusterId, String collectionName) {
+            this.clusterId = clusterId;
+            this.collectionName = collectionName;
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.ssssssss.milvus.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.ssssssss.milvus.config.ClusterContext;
+import com.ssssssss.milvus.model.ImportJob;
+import io.milvus.client.MilvusClient;
+import io.milvus.grpc.MutationResult;
+import io.milvus.param.R;
+import io.milvus.param.dml.DeleteParam;
+import io.milvus.param.dml.InsertParam;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 文件导入服务，分块并发解析文件并流水线写入Milvus，每个分块提交后持久化断点
+ *
+ * <p>分块按文件顺序提交，断点只推进到连续提交成功的最后一个分块，失败或重启后从断点恢复。
+ * fvecs/npy恢复前会删除断点之后可能已写入的id区间；NDJSON的id来自文件，断点之后已写入的分块可能重复写入。
+ * 主键和向量字段名从集合结构解析，fvecs/npy按startId生成Int64主键，VarChar主键的集合只能导入NDJSON或使用autoId。</p>
+ *
+ * @author 冰点
+ */
+@Service
+@Slf4j
+public class ImportService {
+
+    @Autowired
+    private MilvusClient milvusClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CollectionMetadataService collectionMetadataService;
+
+    @Autowired
+    private RowCountService rowCountService;
+
+    @Autowired
+    private SearchCache searchCache;
+
+    @Autowired
+    private FlushScheduler flushScheduler;
+
+    @Value("${milvus.import.directory:import}")
+    private String directory;
+
+    @Value("${milvus.import.checkpoint-dir:import-checkpoints}")
+    private String checkpointDir;
+
+    @Value("${milvus.import.chunk-bytes:4194304}")
+    private int chunkBytes;
+
+    @Value("${milvus.import.parse-threads:4}")
+    private int parseThreads;
+
+    @Value("${milvus.import.max-in-flight:8}")
+    private int maxInFlight;
+
+    @Value("${milvus.import.max-jobs:2}")
+    private int maxJobs;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    private final Set<String> cancelled = ConcurrentHashMap.newKeySet();
+
+    private Path baseDir;
+
+    private ExecutorService jobExecutor;
+
+    private ExecutorService parseExecutor;
+
+    /**
+     * 创建并启动导入任务
+     *
+     * @param path    相对于导入目录的文件路径
+     * @param format  ndjson、fvecs或npy，为空时按扩展名推断
+     * @param startId fvecs/npy生成id的起始值
+     */
+    public ImportJob start(String collectionName, String path, String format, long startId) throws IOException {
+        Path file = resolve(path);
+        ImportJob job = new ImportJob();
+        job.setId(UUID.randomUUID().toString().replace("-", "").substring(0, 12));
+        job.setClusterId(ClusterContext.current());
+        job.setCollectionName(collectionName);
+        job.setPath(path);
+        job.setFormat(format != null && !format.isBlank() ? format.toLowerCase(Locale.ROOT) : ImportSource.detectFormat(path));
+        job.setStartId(startId);
+        job.setFileBytes(Files.size(file));
+        job.setCreatedAt(System.currentTimeMillis());
+
+        // 提前校验集合结构、文件格式和维度，避免提交后才失败
+        CollectionMetadataService.KeyFields keys = resolveKeys(collectionName, job.getFormat());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ImportSource source = ImportSource.open(channel, job.getFormat(), chunkBytes, startId, keys);
+            int expected = collectionMetadataService.getDimension(collectionName);
+            if (source.dimension() > 0 && source.dimension() != expected) {
+                throw new IllegalArgumentException("向量维度不匹配: 集合为 " + expected + "，文件为 " + source.dimension());
+            }
+            job.setOffset(source.dataStart());
+        }
+        job.setStatus(ImportJob.Status.RUNNING);
+        submit(job, false);
+        return job;
+    }
+
+    /**
+     * 从断点恢复失败或已取消的任务
+     */
+    public ImportJob resume(String jobId) {
+        ImportJob job = get(jobId);
+        // 检查状态和切换为运行中需原子完成，避免并发恢复同一任务时提交两次
+        synchronized (job) {
+            if (job.getStatus() == ImportJob.Status.RUNNING || job.getStatus() == ImportJob.Status.COMPLETED) {
+                throw new IllegalStateException("任务状态为 " + job.getStatus() + "，无法恢复");
+            }
+            job.setError(null);
+            job.setStatus(ImportJob.Status.RUNNING);
+        }
+        submit(job, true);
+        return job;
+    }
+
+    /**
+     * 取消任务，已提交的分块保留，断点可用于之后恢复
+     */
+    public ImportJob cancel(String jobId) {
+        ImportJob job = get(jobId);
+        if (job.getStatus() == ImportJob.Status.RUNNING) {
+            cancelled.add(jobId);
+        }
+        return job;
+    }
+
+    public ImportJob get(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null || !job.getClusterId().equals(ClusterContext.current())) {
+            throw new IllegalArgumentException("导入任务不存在: " + jobId);
+        }
+        return job;
+    }
+
+    /**
+     * 获取当前集群的导入任务，按创建时间倒序
+     */
+    public List<ImportJob> list() {
+        String clusterId = ClusterContext.current();
+        List<ImportJob> result = new ArrayList<>();
+        for (ImportJob job : jobs.values()) {
+            if (job.getClusterId().equals(clusterId)) {
+                result.add(job);
+            }
+        }
+        result.sort(Comparator.comparingLong(ImportJob::getCreatedAt).reversed());
+        return result;
+    }
+
+    /**
+     * 提交已切换为运行中的任务
+     */
+    private void submit(ImportJob job, boolean resumed) {
+        job.setFinishedAt(0);
+        jobs.put(job.getId(), job);
+        saveCheckpoint(job);
+        jobExecutor.execute(() -> ClusterContext.runIn(job.getClusterId(), () -> run(job, resumed)));
+    }
+
+    private void run(ImportJob job, boolean resumed) {
+        long start = System.nanoTime();
+        long initialRows = job.getRowsImported();
+        Deque<InFlight> window = new ArrayDeque<>();
+        try (FileChannel channel = FileChannel.open(resolve(job.getPath()), StandardOpenOption.READ)) {
+            // 恢复时集合可能已重建，重新解析主键和向量字段
+            CollectionMetadataService.KeyFields keys = resolveKeys(job.getCollectionName(), job.getFormat());
+            ImportSource source = ImportSource.open(channel, job.getFormat(), chunkBytes, job.getStartId(), keys);
+            if (resumed) {
+                cleanupUncommitted(job, keys, source);
+            }
+
+            long offset = Math.max(job.getOffset(), source.dataStart());
+            ImportSource.Chunk chunk;
+            while (!cancelled.contains(job.getId()) && (chunk = source.next(offset)) != null) {
+                offset = chunk.end();
+                window.add(new InFlight(chunk, parseAndInsert(job, keys, source, chunk)));
+                if (window.size() >= Math.max(1, maxInFlight)) {
+                    commit(job, window.poll(), start, initialRows);
+                }
+            }
+            while (!window.isEmpty()) {
+                commit(job, window.poll(), start, initialRows);
+            }
+
+            if (cancelled.contains(job.getId())) {
+                flushScheduler.recordMutation(job.getCollectionName(), job.getRowsImported() - initialRows);
+                job.setStatus(ImportJob.Status.CANCELLED);
+            } else {
+                flushScheduler.flushNow(job.getCollectionName());
+                job.setStatus(ImportJob.Status.COMPLETED);
+            }
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error("导入任务失败: {}", job.getId(), cause);
+            // 等待在途分块结束，保证恢复前的清理范围稳定
+            for (InFlight inFlight : window) {
+                inFlight.future().exceptionally(t -> null).join();
+            }
+            job.setError(cause.getMessage());
+            job.setStatus(ImportJob.Status.FAILED);
+        } finally {
+            cancelled.remove(job.getId());
+            job.setFinishedAt(System.currentTimeMillis());
+            saveCheckpoint(job);
+            rowCountService.invalidate(job.getCollectionName());
+            searchCache.invalidate(job.getCollectionName());
+        }
+        log.info("导入任务结束: 任务={}, 集合={}, 状态={}, 行数={}, 速率={}/s", job.getId(), job.getCollectionName(),
+                job.getStatus(), job.getRowsImported(), Math.round(job.getRowsPerSecond()));
+    }
+
+    /**
+     * 在解析线程池中解析分块，随后异步写入
+     */
+    private CompletableFuture<Inserted> parseAndInsert(ImportJob job, CollectionMetadataService.KeyFields keys,
+                                                       ImportSource source, ImportSource.Chunk chunk) {
+        return CompletableFuture.supplyAsync(ClusterContext.wrap(() -> {
+            try {
+                return source.parse(chunk);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }), parseExecutor).thenCompose(rows -> {
+            if (rows.vectors().isEmpty()) {
+                return CompletableFuture.completedFuture(new Inserted(0, null));
+            }
+            return ClusterContext.wrap(() -> insert(job.getCollectionName(), keys, rows)).get();
+        });
+    }
+
+    private CompletableFuture<Inserted> insert(String collectionName, CollectionMetadataService.KeyFields keys,
+                                               ImportSource.Rows rows) {
+        InsertParam insertParam = InsertParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withFields(keys.insertFields(rows.ids(), rows.vectors()))
+                .build();
+
+        CompletableFuture<Inserted> future = new CompletableFuture<>();
+        Futures.addCallback(milvusClient.insertAsync(insertParam), new FutureCallback<R<MutationResult>>() {
+            @Override
+            public void onSuccess(R<MutationResult> response) {
+                if (response.getStatus() == R.Status.Success.getCode()) {
+                    future.complete(new Inserted(rows.vectors().size(), rows.lastId()));
+                } else {
+                    future.completeExceptionally(new IllegalStateException(response.getMessage()));
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+
+    /**
+     * 按文件顺序等待分块完成并推进断点
+     */
+    private void commit(ImportJob job, InFlight inFlight, long start, long initialRows) {
+        Inserted inserted = inFlight.future().join();
+        job.setOffset(inFlight.chunk().end());
+        job.setRowsImported(job.getRowsImported() + inserted.rows());
+        if (inserted.lastId() != null) {
+            job.setLastCommittedId(inserted.lastId());
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        job.setRowsPerSecond(elapsedNanos > 0 ? (job.getRowsImported() - initialRows) * 1e9 / elapsedNanos : 0);
+        saveCheckpoint(job);
+    }
+
+    /**
+     * 恢复时删除断点之后可能已写入的生成id，避免主键重复；autoId集合无法定位这些行，不清理
+     */
+    private void cleanupUncommitted(ImportJob job, CollectionMetadataService.KeyFields keys, ImportSource source) {
+        long[] range = source.pendingIdRange(job.getOffset());
+        if (range == null || range[0] >= range[1]) {
+            return;
+        }
+        R<MutationResult> response = milvusClient.delete(DeleteParam.newBuilder()
+                .withCollectionName(job.getCollectionName())
+                .withExpr(keys.primaryName() + " >= " + range[0] + " and " + keys.primaryName() + " < " + range[1])
+                .build());
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            throw new IllegalStateException("清理未提交数据失败: " + response.getMessage());
+        }
+    }
+
+    /**
+     * 解析集合的主键和向量字段，fvecs/npy生成的Int64主键不能写入VarChar主键
+     */
+    private CollectionMetadataService.KeyFields resolveKeys(String collectionName, String format) {
+        CollectionMetadataService.KeyFields keys = collectionMetadataService.getKeyFields(collectionName);
+        if (keys.stringKey() && !keys.autoId() && !ImportSource.FORMAT_NDJSON.equals(format)) {
+            throw new IllegalArgumentException(format + "格式按startId生成Int64主键，集合 " + collectionName
+                    + " 的主键为VarChar，请使用ndjson格式");
+        }
+        return keys;
+    }
+
+    /**
+     * 解析导入文件路径，限制在导入目录内
+     */
+    private Path resolve(String path) {
+        Path file = baseDir.resolve(path).normalize();
+        if (!file.startsWith(baseDir)) {
+            throw new IllegalArgumentException("文件路径超出导入目录: " + path);
+        }
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("文件不存在: " + path);
+        }
+        return file;
+    }
+
+    private void saveCheckpoint(ImportJob job) {
+        Path target = Paths.get(checkpointDir, job.getId() + ".json");
+        Path temp = Paths.get(checkpointDir, job.getId() + ".json.tmp");
+        try {
+            objectMapper.writeValue(temp.toFile(), job);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("保存导入断点失败: {}", job.getId(), e);
+        }
+    }
+
+    /**
+     * 加载历史断点，服务重启时仍在运行的任务标记为失败，可通过恢复接口继续
+     */
+    private void loadCheckpoints() throws IOException {
+        Files.createDirectories(Paths.get(checkpointDir));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(checkpointDir), "*.json")) {
+            for (Path file : files) {
+                try {
+                    ImportJob job = objectMapper.readValue(file.toFile(), ImportJob.class);
+                    if (job.getStatus() == ImportJob.Status.RUNNING) {
+                        job.setStatus(ImportJob.Status.FAILED);
+                        job.setError("服务重启导致任务中断");
+                    }
+                    jobs.put(job.getId(), job);
+                } catch (IOException e) {
+                    log.warn("读取导入断点失败: {}", file, e);
+                }
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        baseDir = Paths.get(directory).toAbsolutePath().normalize();
+        loadCheckpoints();
+
+        AtomicInteger jobCounter = new AtomicInteger();
+        jobExecutor = Executors.newFixedThreadPool(Math.max(1, maxJobs), r -> {
+            Thread thread = new Thread(r, "milvus-import-job-" + jobCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger parseCounter = new AtomicInteger();
+        parseExecutor = Executors.newFixedThreadPool(Math.max(1, parseThreads), r -> {
+            Thread thread = new Thread(r, "milvus-import-" + parseCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        parseExecutor.shutdownNow();
+    }
+
+    private record InFlight(ImportSource.Chunk chunk, CompletableFuture<Inserted> future) {
+    }
+
+    private record Inserted(int rows, Object lastId) {
+    }
+}
@@ -0,0 +1,335 @@
+package com.ssssssss.milvus.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.ssssssss.milvus.util.VectorCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 导入文件的分块与解析
+ *
+ * <p>{@link #next}由单个协调线程顺序调用以确定分块边界，{@link #parse}在解析线程池中并发执行，
+ * 每个分块单独内存映射。</p>
+ *
+ * @author 冰点
+ */
+abstract class ImportSource {
+
+    static final String FORMAT_NDJSON = "ndjson";
+    static final String FORMAT_FVECS = "fvecs";
+    static final String FORMAT_NPY = "npy";
+
+    protected final FileChannel channel;
+    protected final long size;
+    protected final int chunkBytes;
+
+    ImportSource(FileChannel channel, int chunkBytes) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * 打开导入文件，定长格式按startId生成主键，调用方需保证此时主键为Int64或autoId
+     */
+    static ImportSource open(FileChannel channel, String format, int chunkBytes, long startId,
+                             CollectionMetadataService.KeyFields keys) throws IOException {
+        return switch (format) {
+            case FORMAT_NDJSON -> new Ndjson(channel, chunkBytes, keys);
+            case FORMAT_FVECS -> new Fvecs(channel, chunkBytes, startId, keys.autoId());
+            case FORMAT_NPY -> new Npy(channel, chunkBytes, startId, keys.autoId());
+            default -> throw new IllegalArgumentException("不支持的导入格式: " + format);
+        };
+    }
+
+    /**
+     * 根据文件扩展名推断格式
+     */
+    static String detectFormat(String path) {
+        String lower = path.toLowerCase();
+        if (lower.endsWith(".fvecs")) {
+            return FORMAT_FVECS;
+        }
+        if (lower.endsWith(".npy")) {
+            return FORMAT_NPY;
+        }
+        return FORMAT_NDJSON;
+    }
+
+    /**
+     * 数据区起始字节位置
+     */
+    long dataStart() {
+        return 0;
+    }
+
+    /**
+     * 文件中的向量维度，NDJSON返回0表示未知
+     */
+    int dimension() {
+        return 0;
+    }
+
+    /**
+     * 计算从offset开始的下一个分块，已到文件末尾时返回null
+     */
+    abstract Chunk next(long offset) throws IOException;
+
+    /**
+     * 解析一个分块
+     */
+    abstract Rows parse(Chunk chunk) throws IOException;
+
+    /**
+     * 生成id的格式返回尚未提交部分的id区间[from, to)，用于恢复前清理，NDJSON返回null
+     */
+    long[] pendingIdRange(long offset) {
+        return null;
+    }
+
+    protected MappedByteBuffer map(Chunk chunk) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start(), chunk.end() - chunk.start());
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    record Chunk(long start, long end) {
+    }
+
+    /**
+     * 一个分块解析出的列，autoId集合的ids为null
+     */
+    record Rows(List<Object> ids, List<List<Float>> vectors) {
+
+        Object lastId() {
+            return ids == null || ids.isEmpty() ? null : ids.get(ids.size() - 1);
+        }
+    }
+
+    /**
+     * 每行一个 {"id": 1, "vector": [...]} 对象，字段名与集合结构一致，分块边界对齐到换行符
+     */
+    static class Ndjson extends ImportSource {
+
+        private static final ObjectMapper MAPPER = new ObjectMapper();
+
+        private final CollectionMetadataService.KeyFields keys;
+
+        Ndjson(FileChannel channel, int chunkBytes, CollectionMetadataService.KeyFields keys) throws IOException {
+            super(channel, chunkBytes);
+            this.keys = keys;
+        }
+
+        @Override
+        Chunk next(long offset) throws IOException {
+            if (offset >= size) {
+                return null;
+            }
+            long end = Math.min(size, offset + chunkBytes);
+            ByteBuffer buffer = ByteBuffer.allocate(4096);
+            while (end < size) {
+                buffer.clear();
+                int read = channel.read(buffer, end);
+                int newline = -1;
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += Math.max(read, 0);
+                if (read <= 0) {
+                    end = size;
+                }
+            }
+            return new Chunk(offset, Math.min(end, size));
+        }
+
+        @Override
+        Rows parse(Chunk chunk) throws IOException {
+            List<Object> ids = new ArrayList<>();
+            List<List<Float>> vectors = new ArrayList<>();
+            int dimensionHint = 128;
+            try (JsonParser parser = MAPPER.getFactory().createParser(new ByteBufferBackedInputStream(map(chunk)))) {
+                JsonToken token;
+                while ((token = parser.nextToken()) != null) {
+                    if (token != JsonToken.START_OBJECT) {
+                        throw new IllegalArgumentException("字节位置" + chunk.start() + "之后存在非JSON对象的行");
+                    }
+                    List<Float> vector = BulkInsertService.readRow(parser, keys, ids, vectors.size(), dimensionHint);
+                    dimensionHint = vector.size();
+                    vectors.add(vector);
+                }
+            }
+            return new Rows(keys.autoId() ? null : ids, vectors);
+        }
+    }
+
+    /**
+     * 定长记录格式的公共部分，id按记录序号生成，autoId集合不生成id
+     */
+    abstract static class FixedRecord extends ImportSource {
+
+        protected final long startId;
+        protected final boolean autoId;
+        protected int dimension;
+        protected long dataStart;
+        protected int recordBytes;
+
+        FixedRecord(FileChannel channel, int chunkBytes, long startId, boolean autoId) throws IOException {
+            super(channel, chunkBytes);
+            this.startId = startId;
+            this.autoId = autoId;
+        }
+
+        protected void validate() {
+            if (dimension <= 0) {
+                throw new IllegalArgumentException("文件中的向量维度无效: " + dimension);
+            }
+            if ((size - dataStart) % recordBytes != 0) {
+                throw new IllegalArgumentException("文件长度与维度 " + dimension + " 不匹配");
+            }
+        }
+
+        @Override
+        long dataStart() {
+            return dataStart;
+        }
+
+        @Override
+        int dimension() {
+            return dimension;
+        }
+
+        @Override
+        Chunk next(long offset) {
+            if (offset >= size) {
+                return null;
+            }
+            long records = Math.max(1, chunkBytes / recordBytes);
+            return new Chunk(offset, Math.min(size, offset + records * recordBytes));
+        }
+
+        @Override
+        Rows parse(Chunk chunk) throws IOException {
+            int count = (int) ((chunk.end() - chunk.start()) / recordBytes);
+            long firstId = startId + (chunk.start() - dataStart) / recordBytes;
+            MappedByteBuffer buffer = map(chunk);
+            float[][] vectors = new float[count][dimension];
+            List<Object> ids = autoId ? null : new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                readRecord(buffer, i, vectors[i]);
+                if (ids != null) {
+                    ids.add(firstId + i);
+                }
+            }
+            return new Rows(ids, VectorCodec.asLists(vectors));
+        }
+
+        protected abstract void readRecord(ByteBuffer buffer, int index, float[] target);
+
+        @Override
+        long[] pendingIdRange(long offset) {
+            if (autoId) {
+                return null;
+            }
+            long from = startId + (Math.max(offset, dataStart) - dataStart) / recordBytes;
+            long to = startId + (size - dataStart) / recordBytes;
+            return new long[]{from, to};
+        }
+    }
+
+    /**
+     * fvecs格式：每条记录为int32维度加维度个float32
+     */
+    static class Fvecs extends FixedRecord {
+
+        Fvecs(FileChannel channel, int chunkBytes, long startId, boolean autoId) throws IOException {
+            super(channel, chunkBytes, startId, autoId);
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.read(header, 0) != Integer.BYTES) {
+                throw new IllegalArgumentException("fvecs文件为空");
+            }
+            dimension = header.getInt(0);
+            recordBytes = Integer.BYTES + dimension * Float.BYTES;
+            validate();
+        }
+
+        @Override
+        protected void readRecord(ByteBuffer buffer, int index, float[] target) {
+            int position = index * recordBytes;
+            if (buffer.getInt(position) != dimension) {
+                throw new IllegalArgumentException("第" + index + "条记录的维度与文件首条记录不一致");
+            }
+            FloatBuffer floats = buffer.position(position + Integer.BYTES).slice()
+                    .order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            floats.get(target);
+        }
+    }
+
+    /**
+     * npy格式：仅支持形状为(n, d)、C顺序的小端float32数组
+     */
+    static class Npy extends FixedRecord {
+
+        private static final Pattern DESCR = Pattern.compile("'descr':\\s*'([^']+)'");
+        private static final Pattern FORTRAN = Pattern.compile("'fortran_order':\\s*(True|False)");
+        private static final Pattern SHAPE = Pattern.compile("'shape':\\s*\\((\\d+),\\s*(\\d+)\\)");
+
+        Npy(FileChannel channel, int chunkBytes, long startId, boolean autoId) throws IOException {
+            super(channel, chunkBytes, startId, autoId);
+            ByteBuffer prefix = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(prefix, 0);
+            if (prefix.get(0) != (byte) 0x93 || prefix.get(1) != 'N' || prefix.get(5) != 'Y') {
+                throw new IllegalArgumentException("不是有效的npy文件");
+            }
+            int major = prefix.get(6);
+            int headerStart = major == 1 ? 10 : 12;
+            int headerLength = major == 1 ? Short.toUnsignedInt(prefix.getShort(8)) : prefix.getInt(8);
+            ByteBuffer headerBytes = ByteBuffer.allocate(headerLength);
+            channel.read(headerBytes, headerStart);
+            String header = new String(headerBytes.array(), StandardCharsets.ISO_8859_1);
+
+            Matcher descr = DESCR.matcher(header);
+            Matcher fortran = FORTRAN.matcher(header);
+            Matcher shape = SHAPE.matcher(header);
+            if (!descr.find() || !"<f4".equals(descr.group(1))) {
+                throw new IllegalArgumentException("npy数组类型必须为<f4");
+            }
+            if (fortran.find() && "True".equals(fortran.group(1))) {
+                throw new IllegalArgumentException("不支持fortran_order的npy数组");
+            }
+            if (!shape.find()) {
+                throw new IllegalArgumentException("npy数组形状必须为(n, d)");
+            }
+            dimension = Integer.parseInt(shape.group(2));
+            dataStart = headerStart + headerLength;
+            recordBytes = dimension * Float.BYTES;
+            validate();
+        }
+
+        @Override
+        protected void readRecord(ByteBuffer buffer, int index, float[] target) {
+            FloatBuffer floats = buffer.position(index * recordBytes).slice()
+                    .order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            floats.get(target);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.ssssssss.milvus.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ssssssss.milvus.config.ClusterContext;
+import com.ssssssss.milvus.model.AdminJob;
+import com.ssssssss.milvus.model.IndexBuildRecord;
+import com.ssssssss.milvus.model.IndexSpec;
+import io.milvus.client.MilvusClient;
+import io.milvus.grpc.DescribeIndexResponse;
+import io.milvus.grpc.GetQuerySegmentInfoResponse;
+import io.milvus.grpc.IndexDescription;
+import io.milvus.grpc.KeyValuePair;
+import io.milvus.grpc.QuerySegmentInfo;
+import io.milvus.param.IndexType;
+import io.milvus.param.MetricType;
+import io.milvus.param.R;
+import io.milvus.param.RpcStatus;
+import io.milvus.param.collection.ReleaseCollectionParam;
+import io.milvus.param.control.GetQuerySegmentInfoParam;
+import io.milvus.param.index.CreateIndexParam;
+import io.milvus.param.index.DescribeIndexParam;
+import io.milvus.param.index.DropIndexParam;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * 索引服务，按索引类型、维度和行数生成预设参数，支持重建索引并记录构建耗时与内存占用
+ *
+ * @author 冰点
+ */
+@Service
+@Slf4j
+public class IndexService {
+
+    /**
+     * 支持配置的向量索引类型
+     */
+    public static final List<IndexType> VECTOR_INDEX_TYPES = List.of(IndexType.FLAT, IndexType.IVF_FLAT,
+            IndexType.IVF_SQ8, IndexType.IVF_PQ, IndexType.HNSW, IndexType.SCANN, IndexType.DISKANN,
+            IndexType.AUTOINDEX);
+
+    @Autowired
+    private MilvusClient milvusClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AdminJobService adminJobService;
+
+    @Autowired
+    private CollectionMetadataService collectionMetadataService;
+
+    @Autowired
+    private RowCountService rowCountService;
+
+    @Value("${milvus.index.history:200}")
+    private int history;
+
+    private final Deque<IndexBuildRecord> records = new ConcurrentLinkedDeque<>();
+
+    /**
+     * 在集合上创建索引，集合需未建索引
+     */
+    public AdminJob create(String collectionName, IndexSpec spec, int dimension) {
+        long rows = spec.getExpectedRows() != null ? spec.getExpectedRows() : 0;
+        return submitBuild(collectionName, spec, dimension, rows);
+    }
+
+    /**
+     * 校验索引配置，创建集合前调用以免集合建好后索引参数才报错
+     */
+    public void validate(IndexSpec spec, int dimension) {
+        long rows = spec.getExpectedRows() != null ? spec.getExpectedRows() : 0;
+        toParam("validate", spec, dimension, rows);
+    }
+
+    /**
+     * 释放集合并删除现有索引后按新配置重建，reload为true时重建完成后重新加载并测量内存
+     */
+    public AdminJob rebuild(String collectionName, IndexSpec spec) {
+        int dimension = collectionMetadataService.getDimension(collectionName);
+        long rows = spec.getExpectedRows() != null ? spec.getExpectedRows() : rowCountService.getRowCount(collectionName);
+        // 先校验参数，避免删除旧索引后才发现配置错误
+        toParam(collectionName, spec, dimension, rows);
+
+        R<RpcStatus> released = milvusClient.releaseCollection(
+                ReleaseCollectionParam.newBuilder().withCollectionName(collectionName).build());
+        if (released.getStatus() != R.Status.Success.getCode()) {
+            throw new IllegalStateException("释放集合失败: " + released.getMessage());
+        }
+        for (IndexDescription index : describe(collectionName)) {
+            R<RpcStatus> dropped = milvusClient.dropIndex(DropIndexParam.newBuilder()
+                    .withCollectionName(collectionName)
+                    .withIndexName(index.getIndexName())
+                    .build());
+            if (dropped.getStatus() != R.Status.Success.getCode()) {
+                throw new IllegalStateException("删除索引失败: " + dropped.getMessage());
+            }
+        }
+        collectionMetadataService.invalidate(collectionName);
+        return submitBuild(collectionName, spec, dimension, rows);
+    }
+
+    /**
+     * 获取集合当前的索引
+     */
+    public List<IndexDescription> describe(String collectionName) {
+        R<DescribeIndexResponse> response = milvusClient.describeIndex(
+                DescribeIndexParam.newBuilder().withCollectionName(collectionName).build());
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            // 未建索引时describeIndex返回错误
+            return Collections.emptyList();
+        }
+        return response.getData().getIndexDescriptionsList();
+    }
+
+    /**
+     * 以Map形式描述集合当前的索引
+     */
+    public List<Map<String, Object>> describeAsMap(String collectionName) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (IndexDescription index : describe(collectionName)) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("indexName", index.getIndexName());
+            row.put("fieldName", index.getFieldName());
+            for (KeyValuePair pair : index.getParamsList()) {
+                row.put(pair.getKey(), pair.getValue());
+            }
+            row.put("state", index.getState().name());
+            row.put("indexedRows", index.getIndexedRows());
+            row.put("totalRows", index.getTotalRows());
+            result.add(row);
+        }
+        return result;
+    }
+
+    /**
+     * 获取构建记录，collectionName为空时返回当前集群的全部记录
+     */
+    public List<IndexBuildRecord> getRecords(String collectionName) {
+        String clusterId = ClusterContext.current();
+        List<IndexBuildRecord> result = new ArrayList<>();
+        for (IndexBuildRecord record : records) {
+            if (record.getClusterId().equals(clusterId)
+                    && (collectionName == null || collectionName.equals(record.getCollectionName()))) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 各索引类型在给定维度和行数下的预设参数与内存估算
+     */
+    public Map<String, Object> presets(int dimension, long rows) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (IndexType type : VECTOR_INDEX_TYPES) {
+            Map<String, Object> params = preset(type, dimension, rows);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("params", params);
+            entry.put("estimatedBytes", estimateBytes(type, dimension, rows, params));
+            result.put(type.name(), entry);
+        }
+        return result;
+    }
+
+    /**
+     * 解析JSON格式的索引参数
+     */
+    public Map<String, Object> parseParams(String json) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<LinkedHashMap<String, Object>>() {
+            });
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("索引参数格式错误: " + e.getOriginalMessage());
+        }
+    }
+
+    private AdminJob submitBuild(String collectionName, IndexSpec spec, int dimension, long rows) {
+        CreateIndexParam.Builder param = toParam(collectionName, spec, dimension, rows);
+        IndexType type = parseIndexType(spec.getIndexType());
+        Map<String, Object> params = resolveParams(type, spec, dimension, rows);
+
+        IndexBuildRecord record = new IndexBuildRecord();
+        record.setCollectionName(collectionName);
+        record.setIndexType(type.name());
+        record.setMetricType(spec.getMetricType().toUpperCase(Locale.ROOT));
+        record.setParams(params);
+        record.setDimension(dimension);
+        record.setRows(rows);
+        record.setEstimatedBytes(estimateBytes(type, dimension, rows, params));
+
+        return adminJobService.buildIndex(collectionName, param, job -> {
+            record.setJobId(job.getId());
+            record.setClusterId(job.getClusterId());
+            record.setBuildMs(job.getElapsedMs());
+            record.setCreatedAt(job.getFinishedAt());
+            addRecord(record);
+            log.info("索引构建完成: 集合={}, 类型={}, 行数={}, 耗时={}ms", collectionName, type, rows, job.getElapsedMs());
+            if (spec.isReload()) {
+                adminJobService.load(collectionName, loaded -> record.setMemoryBytes(measureMemory(collectionName)));
+            }
+        });
+    }
+
+    private CreateIndexParam.Builder toParam(String collectionName, IndexSpec spec, int dimension, long rows) {
+        IndexType type = parseIndexType(spec.getIndexType());
+        MetricType metricType;
+        try {
+            metricType = MetricType.valueOf(spec.getMetricType().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("不支持的度量类型: " + spec.getMetricType());
+        }
+        String extraParam;
+        try {
+            extraParam = objectMapper.writeValueAsString(resolveParams(type, spec, dimension, rows));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("索引参数格式错误", e);
+        }
+        return CreateIndexParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withFieldName(collectionMetadataService.getVectorFieldName(collectionName))
+                .withIndexType(type)
+                .withMetricType(metricType)
+                .withExtraParam(extraParam);
+    }
+
+    private IndexType parseIndexType(String indexType) {
+        for (IndexType type : VECTOR_INDEX_TYPES) {
+            if (type.name().equalsIgnoreCase(indexType)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("不支持的索引类型: " + indexType);
+    }
+
+    private Map<String, Object> resolveParams(IndexType type, IndexSpec spec, int dimension, long rows) {
+        return spec.getParams() != null ? spec.getParams() : preset(type, dimension, rows);
+    }
+
+    /**
+     * 预设参数：IVF类nlist取4*sqrt(行数)，IVF_PQ的m取不超过维度1/4的约数，HNSW高维时加大M
+     */
+    private Map<String, Object> preset(IndexType type, int dimension, long rows) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        int nlist = rows > 0 ? (int) Math.max(16, Math.min(65536, 4 * Math.sqrt(rows))) : 1024;
+        switch (type) {
+            case IVF_FLAT, IVF_SQ8 -> params.put("nlist", nlist);
+            case IVF_PQ -> {
+                params.put("nlist", nlist);
+                params.put("m", largestDivisor(dimension, Math.max(1, dimension / 4)));
+                params.put("nbits", 8);
+            }
+            case SCANN -> {
+                params.put("nlist", nlist);
+                params.put("with_raw_data", true);
+            }
+            case HNSW -> {
+                params.put("M", dimension > 256 ? 32 : 16);
+                params.put("efConstruction", 200);
+            }
+            default -> {
+                // FLAT、DISKANN、AUTOINDEX无需构建参数
+            }
+        }
+        return params;
+    }
+
+    private static int largestDivisor(int value, int limit) {
+        for (int candidate = limit; candidate > 1; candidate--) {
+            if (value % candidate == 0) {
+                return candidate;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * 按索引结构粗略估算内存占用，行数未知或AUTOINDEX时返回空
+     */
+    private Long estimateBytes(IndexType type, int dimension, long rows, Map<String, Object> params) {
+        if (rows <= 0) {
+            return null;
+        }
+        long raw = rows * dimension * (long) Float.BYTES;
+        long centroids = intParam(params, "nlist", 0) * (long) dimension * Float.BYTES;
+        long ids = rows * Long.BYTES;
+        return switch (type) {
+            case FLAT -> raw;
+            case IVF_FLAT -> raw + ids + centroids;
+            case IVF_SQ8 -> rows * dimension + ids + centroids;
+            case IVF_PQ -> {
+                int m = intParam(params, "m", dimension / 4);
+                int nbits = intParam(params, "nbits", 8);
+                yield rows * m * nbits / 8 + ids + centroids + (1L << nbits) * dimension * Float.BYTES;
+            }
+            case SCANN -> rows * dimension / 2 + ids + centroids
+                    + (Boolean.TRUE.equals(params.get("with_raw_data")) ? raw : 0);
+            case HNSW -> raw + ids + rows * intParam(params, "M", 16) * 2L * Integer.BYTES;
+            // 内存中只保留PQ编码，默认pq_code_budget_gb_ratio为0.125
+            case DISKANN -> raw / 8;
+            default -> null;
+        };
+    }
+
+    private static int intParam(Map<String, Object> params, String key, int defaultValue) {
+        Object value = params.get(key);
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        if (value instanceof String text) {
+            try {
+                return Integer.parseInt(text);
+            } catch (NumberFormatException ignored) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * 集合加载后各段内存占用之和
+     */
+    private Long measureMemory(String collectionName) {
+        R<GetQuerySegmentInfoResponse> response = milvusClient.getQuerySegmentInfo(
+                GetQuerySegmentInfoParam.newBuilder().withCollectionName(collectionName).build());
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            log.warn("获取段信息失败: {} {}", collectionName, response.getMessage());
+            return null;
+        }
+        long total = 0;
+        for (QuerySegmentInfo segment : response.getData().getInfosList()) {
+            total += segment.getMemSize();
+        }
+        return total;
+    }
+
+    private void addRecord(IndexBuildRecord record) {
+        records.addFirst(record);
+        while (records.size() > Math.max(1, history)) {
+            records.pollLast();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ssssssss.milvus.service;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.ssssssss.milvus.model.BulkInsertResult;
+import io.milvus.client.MilvusClient;
+import io.milvus.grpc.MutationResult;
+import io.milvus.param.R;
+import io.milvus.param.dml.InsertParam;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 插入流水线，使用异步insert接口保持多个批次同时在途
+ *
+ * <p>非线程安全，由单个生产者线程调用{@link #submit}，完成后调用{@link #await}等待在途批次。</p>
+ *
+ * @author 冰点
+ */
+@Slf4j
+public class InsertPipeline {
+
+    private final MilvusClient milvusClient;
+    private final String collectionName;
+    private final CollectionMetadataService.KeyFields keys;
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final AtomicLong insertedRows = new AtomicLong();
+    private final Queue<BulkInsertResult.BatchFailure> failures = new ConcurrentLinkedQueue<>();
+    private int batches;
+
+    public InsertPipeline(MilvusClient milvusClient, String collectionName, CollectionMetadataService.KeyFields keys,
+                          int maxInFlight) {
+        this.milvusClient = milvusClient;
+        this.collectionName = collectionName;
+        this.keys = keys;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.permits = new Semaphore(this.maxInFlight);
+    }
+
+    /**
+     * 提交一个列式批次，在途批次达到上限时阻塞；autoId集合的ids为null
+     */
+    public void submit(List<?> ids, List<List<Float>> vectors) throws InterruptedException {
+        if (vectors.isEmpty()) {
+            return;
+        }
+        int batch = ++batches;
+        Object firstId = ids != null && !ids.isEmpty() ? ids.get(0) : null;
+        int rows = vectors.size();
+
+        InsertParam insertParam = InsertParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withFields(keys.insertFields(ids, vectors))
+                .build();
+
+        permits.acquire();
+        try {
+            Futures.addCallback(milvusClient.insertAsync(insertParam), new FutureCallback<R<MutationResult>>() {
+                @Override
+                public void onSuccess(R<MutationResult> response) {
+                    if (response.getStatus() == R.Status.Success.getCode()) {
+                        insertedRows.addAndGet(rows);
+                    } else {
+                        failures.add(new BulkInsertResult.BatchFailure(batch, firstId, rows, response.getMessage()));
+                    }
+                    permits.release();
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    log.error("批次{}插入失败", batch, t);
+                    failures.add(new BulkInsertResult.BatchFailure(batch, firstId, rows, t.getMessage()));
+                    permits.release();
+                }
+            }, MoreExecutors.directExecutor());
+        } catch (RuntimeException e) {
+            permits.release();
+            failures.add(new BulkInsertResult.BatchFailure(batch, firstId, rows, e.getMessage()));
+        }
+    }
+
+    /**
+     * 等待所有在途批次完成
+     */
+    public void await() throws InterruptedException {
+        permits.acquire(maxInFlight);
+        permits.release(maxInFlight);
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    public long getInsertedRows() {
+        return insertedRows.get();
+    }
+
+    public List<BulkInsertResult.BatchFailure> getFailures() {
+        return new ArrayList<>(failures);
+    }
+}
@@ -0,0 +1,485 @@
+package com.ssssssss.milvus.service;
+
+import com.ssssssss.milvus.config.ClusterContext;
+import com.ssssssss.milvus.model.LoadTest;
+import com.ssssssss.milvus.model.LoadTestRequest;
+import com.ssssssss.milvus.model.SearchRequest;
+import io.milvus.client.MilvusClient;
+import io.milvus.grpc.MutationResult;
+import io.milvus.grpc.SearchResults;
+import io.milvus.param.R;
+import io.milvus.param.dml.InsertParam;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 压测服务，按并发数、目标速率、时长和读写比例对集合发起搜索与写入
+ *
+ * <p>开环模式下第i个请求的计划发起时间固定为start + i/targetQps，延迟从计划时间开始计算，
+ * 服务端变慢导致的排队时间会计入延迟，避免协调遗漏（coordinated omission）。
+ * 工作线程只向Recorder记录延迟，由计时线程每秒汇总吞吐和分位数并通过SSE推送。</p>
+ *
+ * @author 冰点
+ */
+@Service
+@Slf4j
+public class LoadTestService {
+
+    public static final String EVENT_NAME = "loadtest";
+
+    private static final int VECTOR_POOL_SIZE = 1024;
+
+    @Autowired
+    private MilvusClient milvusClient;
+
+    @Autowired
+    private MilvusService milvusService;
+
+    @Autowired
+    private CollectionMetadataService collectionMetadataService;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private RowCountService rowCountService;
+
+    @Autowired
+    private SearchCache searchCache;
+
+    @Autowired
+    private FlushScheduler flushScheduler;
+
+    @Autowired
+    private SseBroadcaster broadcaster;
+
+    @Value("${milvus.loadtest.max-concurrency:256}")
+    private int maxConcurrency;
+
+    @Value("${milvus.loadtest.max-duration-seconds:3600}")
+    private int maxDurationSeconds;
+
+    @Value("${milvus.loadtest.history:20}")
+    private int history;
+
+    private final Map<String, LoadTest> tests = new ConcurrentHashMap<>();
+
+    private volatile Run current;
+
+    private ExecutorService executor;
+
+    private ScheduledExecutorService ticker;
+
+    /**
+     * 启动压测，同一时间只允许一个压测运行，避免相互抢占线程和连接
+     */
+    public synchronized LoadTest start(LoadTestRequest request) {
+        CollectionMetadataService.KeyFields keys = validate(request);
+        if (current != null) {
+            throw new IllegalStateException("已有压测正在运行: " + current.test.getId());
+        }
+        int dimension = milvusService.getVectorDimension(request.getCollectionName());
+
+        LoadTest test = new LoadTest();
+        test.setId(UUID.randomUUID().toString().replace("-", "").substring(0, 12));
+        test.setClusterId(ClusterContext.current());
+        test.setCollectionName(request.getCollectionName());
+        test.setRequest(request);
+        test.setStatus(LoadTest.Status.RUNNING);
+        test.setStartedAt(System.currentTimeMillis());
+        tests.put(test.getId(), test);
+
+        Run run = new Run(test, request, keys, dimension);
+        current = run;
+        run.ticker = ticker.scheduleAtFixedRate(() -> tick(run), 1, 1, TimeUnit.SECONDS);
+        List<CompletableFuture<Void>> workers = new ArrayList<>(request.getConcurrency());
+        for (int i = 0; i < request.getConcurrency(); i++) {
+            workers.add(CompletableFuture.runAsync(ClusterContext.wrap(() -> work(run)), executor));
+        }
+        CompletableFuture.allOf(workers.toArray(new CompletableFuture<?>[0]))
+                .whenComplete((ignored, e) -> ClusterContext.runIn(test.getClusterId(), () -> finish(run, e)));
+        log.info("压测开始: 集合={}, 并发={}, 目标QPS={}, 时长={}s, 读比例={}", request.getCollectionName(),
+                request.getConcurrency(), request.getTargetQps(), request.getDurationSeconds(), request.getReadRatio());
+        publish(test);
+        return test;
+    }
+
+    /**
+     * 立即停止压测，正在等待计划时间的线程被唤醒后退出，已发出的请求等待返回
+     */
+    public LoadTest stop(String id) {
+        LoadTest test = get(id);
+        Run run = current;
+        if (run != null && run.test == test) {
+            run.stopping = true;
+            for (Thread thread : run.threads) {
+                LockSupport.unpark(thread);
+            }
+        }
+        return test;
+    }
+
+    public LoadTest get(String id) {
+        LoadTest test = tests.get(id);
+        if (test == null || !test.getClusterId().equals(ClusterContext.current())) {
+            throw new IllegalArgumentException("压测不存在: " + id);
+        }
+        return test;
+    }
+
+    /**
+     * 获取当前集群的压测记录，按开始时间倒序
+     */
+    public List<LoadTest> list() {
+        String clusterId = ClusterContext.current();
+        List<LoadTest> result = new ArrayList<>();
+        for (LoadTest test : tests.values()) {
+            if (test.getClusterId().equals(clusterId)) {
+                result.add(test);
+            }
+        }
+        result.sort(Comparator.comparingLong(LoadTest::getStartedAt).reversed());
+        return result;
+    }
+
+    /**
+     * 校验请求并返回集合的主键和向量字段
+     */
+    private CollectionMetadataService.KeyFields validate(LoadTestRequest request) {
+        if (request.getCollectionName() == null || request.getCollectionName().isBlank()) {
+            throw new IllegalArgumentException("collectionName不能为空");
+        }
+        if (request.getConcurrency() <= 0 || request.getConcurrency() > maxConcurrency) {
+            throw new IllegalArgumentException("concurrency必须在1到" + maxConcurrency + "之间");
+        }
+        if (request.getDurationSeconds() <= 0 || request.getDurationSeconds() > maxDurationSeconds) {
+            throw new IllegalArgumentException("durationSeconds必须在1到" + maxDurationSeconds + "之间");
+        }
+        if (request.getReadRatio() < 0 || request.getReadRatio() > 1) {
+            throw new IllegalArgumentException("readRatio必须在0到1之间");
+        }
+        if (request.getInsertBatchSize() <= 0) {
+            throw new IllegalArgumentException("insertBatchSize必须大于0");
+        }
+        CollectionMetadataService.KeyFields keys = collectionMetadataService.getKeyFields(request.getCollectionName());
+        if (request.getReadRatio() < 1 && keys.stringKey() && !keys.autoId()) {
+            // 写入按writeIdStart递增生成Int64主键
+            throw new IllegalArgumentException("集合 " + request.getCollectionName()
+                    + " 的主键为VarChar，压测写入只支持Int64主键或autoId集合，请将readRatio设为1");
+        }
+        return keys;
+    }
+
+    private void work(Run run) {
+        run.threads.add(Thread.currentThread());
+        try {
+            SplittableRandom random;
+            synchronized (run.random) {
+                random = run.random.split();
+            }
+            while (!run.stopping) {
+                long intended;
+                if (run.openLoop) {
+                    long slot = run.slots.getAndIncrement();
+                    intended = run.startNanos + (long) (slot * run.intervalNanos);
+                    if (intended >= run.deadlineNanos) {
+                        break;
+                    }
+                    long wait;
+                    while (!run.stopping && (wait = intended - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    if (run.stopping) {
+                        break;
+                    }
+                } else {
+                    intended = System.nanoTime();
+                    if (intended >= run.deadlineNanos) {
+                        break;
+                    }
+                }
+                boolean read = random.nextDouble() < run.request.getReadRatio();
+                boolean ok;
+                try {
+                    ok = read ? search(run, random) : insert(run, random);
+                } catch (Exception e) {
+                    ok = false;
+                    run.lastError = e.getMessage();
+                }
+                long latency = System.nanoTime() - intended;
+                (read ? run.readRecorder : run.writeRecorder).recordValue(latency);
+                if (!ok) {
+                    run.errors.increment();
+                }
+            }
+        } finally {
+            run.threads.remove(Thread.currentThread());
+        }
+    }
+
+    private boolean search(Run run, SplittableRandom random) {
+        List<Float> vector = run.vectors.get(random.nextInt(run.vectors.size()));
+        R<SearchResults> response = searchService.search(run.request.getCollectionName(),
+                Collections.singletonList(vector), run.searchRequest);
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            run.lastError = response.getMessage();
+            return false;
+        }
+        return true;
+    }
+
+    private boolean insert(Run run, SplittableRandom random) {
+        int batch = run.request.getInsertBatchSize();
+        // autoId集合由Milvus生成主键
+        List<Long> ids = null;
+        if (!run.keys.autoId()) {
+            long firstId = run.nextId.getAndAdd(batch);
+            ids = new ArrayList<>(batch);
+            for (int i = 0; i < batch; i++) {
+                ids.add(firstId + i);
+            }
+        }
+        List<List<Float>> vectors = new ArrayList<>(batch);
+        for (int i = 0; i < batch; i++) {
+            vectors.add(run.vectors.get(random.nextInt(run.vectors.size())));
+        }
+        R<MutationResult> response = milvusClient.insert(InsertParam.newBuilder()
+                .withCollectionName(run.request.getCollectionName())
+                .withFields(run.keys.insertFields(ids, vectors))
+                .build());
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            run.lastError = response.getMessage();
+            return false;
+        }
+        long inserted = response.getData().getInsertCnt();
+        run.inserted.add(inserted);
+        flushScheduler.recordMutation(run.request.getCollectionName(), inserted);
+        return true;
+    }
+
+    /**
+     * 汇总上一秒的延迟直方图，更新吞吐和分位数
+     */
+    private void tick(Run run) {
+        try {
+            ClusterContext.runIn(run.test.getClusterId(), () -> update(run));
+        } catch (Exception e) {
+            log.warn("压测统计更新失败: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void update(Run run) {
+        long now = System.nanoTime();
+        run.readInterval = run.readRecorder.getIntervalHistogram(run.readInterval);
+        run.writeInterval = run.writeRecorder.getIntervalHistogram(run.writeInterval);
+        run.readTotal.add(run.readInterval);
+        run.writeTotal.add(run.writeInterval);
+
+        long count = run.readInterval.getTotalCount() + run.writeInterval.getTotalCount();
+        double seconds = Math.max(1e-3, (now - run.lastTickNanos) / 1e9);
+        double elapsed = Math.max(1e-3, (now - run.startNanos) / 1e9);
+        run.lastTickNanos = now;
+
+        LoadTest test = run.test;
+        test.setReads(run.readTotal.getTotalCount());
+        test.setWrites(run.writeTotal.getTotalCount());
+        test.setErrors(run.errors.sum());
+        test.setCurrentQps(round(count / seconds));
+        test.setAverageQps(round((test.getReads() + test.getWrites()) / elapsed));
+        test.setElapsedMs((long) (elapsed * 1000));
+        test.setReadLatency(latency(run.readTotal));
+        test.setWriteLatency(latency(run.writeTotal));
+
+        Histogram interval = run.readInterval.copy();
+        interval.add(run.writeInterval);
+        LoadTest.Point point = new LoadTest.Point();
+        point.setSecond(round(elapsed));
+        point.setQps(test.getCurrentQps());
+        point.setP99Ms(millis(interval.getTotalCount() == 0 ? 0 : interval.getValueAtPercentile(99)));
+        point.setErrors(test.getErrors());
+        test.getTimeline().add(point);
+        publishTick(test, point);
+    }
+
+    private void finish(Run run, Throwable e) {
+        run.ticker.cancel(false);
+        update(run);
+        LoadTest test = run.test;
+        if (e != null) {
+            test.setError(e.getMessage());
+            test.setStatus(LoadTest.Status.FAILED);
+        } else {
+            if (run.lastError != null) {
+                test.setError(run.lastError);
+            }
+            test.setStatus(run.stopping ? LoadTest.Status.STOPPED : LoadTest.Status.COMPLETED);
+        }
+        test.setFinishedAt(System.currentTimeMillis());
+        rowCountService.adjust(test.getCollectionName(), run.inserted.sum());
+        if (run.inserted.sum() > 0) {
+            searchCache.invalidate(test.getCollectionName());
+        }
+        current = null;
+        log.info("压测结束: 集合={}, 状态={}, 读={}, 写={}, 错误={}, 平均QPS={}", test.getCollectionName(),
+                test.getStatus(), test.getReads(), test.getWrites(), test.getErrors(), test.getAverageQps());
+        publish(test);
+        trimHistory();
+    }
+
+    private void trimHistory() {
+        List<LoadTest> finished = new ArrayList<>();
+        for (LoadTest test : tests.values()) {
+            if (test.getStatus() != LoadTest.Status.RUNNING) {
+                finished.add(test);
+            }
+        }
+        if (finished.size() <= history) {
+            return;
+        }
+        finished.sort(Comparator.comparingLong(LoadTest::getFinishedAt));
+        for (int i = 0; i < finished.size() - history; i++) {
+            tests.remove(finished.get(i).getId());
+        }
+    }
+
+    /**
+     * 推送包含完整采样曲线的压测，用于开始和结束时
+     */
+    private void publish(LoadTest test) {
+        broadcaster.publish(test.getClusterId(), EVENT_NAME, test);
+    }
+
+    /**
+     * 每秒的进度事件只带本秒新增的采样点，不重复推送已有的曲线，浏览器自行追加
+     */
+    private void publishTick(LoadTest test, LoadTest.Point point) {
+        Map<String, Object> tick = new LinkedHashMap<>();
+        tick.put("id", test.getId());
+        tick.put("collectionName", test.getCollectionName());
+        tick.put("status", test.getStatus());
+        tick.put("startedAt", test.getStartedAt());
+        tick.put("elapsedMs", test.getElapsedMs());
+        tick.put("reads", test.getReads());
+        tick.put("writes", test.getWrites());
+        tick.put("errors", test.getErrors());
+        tick.put("currentQps", test.getCurrentQps());
+        tick.put("averageQps", test.getAverageQps());
+        tick.put("readLatency", test.getReadLatency());
+        tick.put("writeLatency", test.getWriteLatency());
+        tick.put("error", test.getError());
+        tick.put("point", point);
+        broadcaster.publish(test.getClusterId(), EVENT_NAME, tick);
+    }
+
+    private static LoadTest.Latency latency(Histogram histogram) {
+        LoadTest.Latency latency = new LoadTest.Latency();
+        latency.setCount(histogram.getTotalCount());
+        if (histogram.getTotalCount() == 0) {
+            return latency;
+        }
+        latency.setMeanMs(round(histogram.getMean() / 1e6));
+        latency.setP50Ms(millis(histogram.getValueAtPercentile(50)));
+        latency.setP90Ms(millis(histogram.getValueAtPercentile(90)));
+        latency.setP99Ms(millis(histogram.getValueAtPercentile(99)));
+        latency.setP999Ms(millis(histogram.getValueAtPercentile(99.9)));
+        latency.setMaxMs(millis(histogram.getMaxValue()));
+        return latency;
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, maxConcurrency), r -> {
+            Thread thread = new Thread(r, "milvus-loadtest-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "milvus-loadtest-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Run run = current;
+        if (run != null) {
+            run.stopping = true;
+        }
+        executor.shutdownNow();
+        ticker.shutdownNow();
+    }
+
+    /**
+     * 一次压测的运行状态
+     */
+    private class Run {
+        final LoadTest test;
+        final LoadTestRequest request;
+        final CollectionMetadataService.KeyFields keys;
+        final SearchRequest searchRequest = new SearchRequest();
+        final List<List<Float>> vectors = new ArrayList<>(VECTOR_POOL_SIZE);
+        final boolean openLoop;
+        final double intervalNanos;
+        final long startNanos;
+        final long deadlineNanos;
+        final AtomicLong slots = new AtomicLong();
+        final AtomicLong nextId;
+        final SplittableRandom random = new SplittableRandom();
+        final Recorder readRecorder = new Recorder(3);
+        final Recorder writeRecorder = new Recorder(3);
+        final Histogram readTotal = new Histogram(3);
+        final Histogram writeTotal = new Histogram(3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder inserted = new LongAdder();
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        Histogram readInterval;
+        Histogram writeInterval;
+        long lastTickNanos;
+        ScheduledFuture<?> ticker;
+        volatile boolean stopping;
+        volatile String lastError;
+
+        Run(LoadTest test, LoadTestRequest request, CollectionMetadataService.KeyFields keys, int dimension) {
+            this.test = test;
+            this.request = request;
+            this.keys = keys;
+            searchRequest.setTopK(request.getTopK());
+            searchRequest.setMetricType(request.getMetricType());
+            searchRequest.setParams(request.getParams());
+            // 预先生成查询和写入用的向量，避免压测期间在客户端生成数据
+            for (int i = 0; i < VECTOR_POOL_SIZE; i++) {
+                vectors.add(milvusService.generateRandomVector(dimension));
+            }
+            nextId = new AtomicLong(request.getWriteIdStart() != null
+                    ? request.getWriteIdStart() : System.currentTimeMillis() * 1000);
+            openLoop = request.getTargetQps() > 0;
+            intervalNanos = openLoop ? 1e9 / request.getTargetQps() : 0;
+            startNanos = System.nanoTime();
+            lastTickNanos = startNanos;
+            deadlineNanos = startNanos + TimeUnit.SECONDS.toNanos(request.getDurationSeconds());
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.ssssssss.milvus.service;
+
+import com.ssssssss.milvus.config.ClusterContext;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.milvus.client.MilvusClient;
+import io.milvus.common.clientenum.ConsistencyLevelEnum;
+import io.milvus.grpc.GetCollectionStatisticsResponse;
+import io.milvus.grpc.KeyValuePair;
+import io.milvus.grpc.QueryResults;
+import io.milvus.param.R;
+import io.milvus.param.collection.GetCollectionStatisticsParam;
+import io.milvus.param.dml.QueryParam;
+import io.milvus.response.QueryResultsWrapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 集合行数服务，按集合短期缓存row_count，并在本应用写入或删除时增量更新
+ *
+ * @author 冰点
+ */
+@Service
+@Slf4j
+public class RowCountService {
+
+    private static final String COUNT_FIELD = "count(*)";
+
+    @Autowired
+    private MilvusClient milvusClient;
+
+    @Value("${milvus.row-count.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${milvus.row-count.threads:2}")
+    private int threads;
+
+    private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+
+    /**
+     * 获取集合行数，优先使用缓存
+     */
+    public long getRowCount(String collectionName) {
+        CachedCount cached = counts.get(ClusterContext.scoped(collectionName));
+        if (cached != null && !cached.isExpired(ttlSeconds)) {
+            return cached.count.get();
+        }
+        Long rowCount = fetchStatisticsRowCount(collectionName);
+        if (rowCount == null) {
+            return 0;
+        }
+        counts.put(ClusterContext.scoped(collectionName), new CachedCount(rowCount));
+        return rowCount;
+    }
+
+    /**
+     * 异步获取集合行数，缓存命中时直接返回；统计信息接口没有异步版本，未命中时在行数线程上拉取，
+     * 不占用调用方或RPC回调线程
+     */
+    public CompletableFuture<Long> getRowCountAsync(String collectionName) {
+        CachedCount cached = counts.get(ClusterContext.scoped(collectionName));
+        if (cached != null && !cached.isExpired(ttlSeconds)) {
+            return CompletableFuture.completedFuture(cached.count.get());
+        }
+        return CompletableFuture.supplyAsync(ClusterContext.wrap(() -> getRowCount(collectionName)), executor);
+    }
+
+    /**
+     * 异步执行count(*)查询获取精确行数，结果同样写入缓存，失败时回退到{@link #getRowCountAsync}
+     */
+    public CompletableFuture<Long> getExactRowCountAsync(String collectionName) {
+        String key = ClusterContext.scoped(collectionName);
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        // 回调线程上没有集群上下文，回退时需要带上发起查询时的集群
+        Runnable fallback = ClusterContext.wrap(() -> {
+            getRowCountAsync(collectionName).whenComplete((count, e) -> {
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(count);
+                }
+            });
+        });
+        Futures.addCallback(milvusClient.queryAsync(countParam(collectionName)), new FutureCallback<R<QueryResults>>() {
+            @Override
+            public void onSuccess(R<QueryResults> response) {
+                if (response.getStatus() != R.Status.Success.getCode()) {
+                    log.warn("count(*)查询失败，回退到统计信息: {} {}", collectionName, response.getMessage());
+                    fallback.run();
+                    return;
+                }
+                try {
+                    result.complete(cacheExactCount(key, response));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                log.warn("count(*)查询失败，回退到统计信息: {} {}", collectionName, t.getMessage());
+                fallback.run();
+            }
+        }, MoreExecutors.directExecutor());
+        return result;
+    }
+
+    /**
+     * 增量调整缓存的行数，未缓存时忽略
+     */
+    public void adjust(String collectionName, long delta) {
+        CachedCount cached = counts.get(ClusterContext.scoped(collectionName));
+        if (cached != null) {
+            cached.count.updateAndGet(value -> Math.max(0, value + delta));
+        }
+    }
+
+    /**
+     * 清除集合的缓存行数
+     */
+    public void invalidate(String collectionName) {
+        counts.remove(ClusterContext.scoped(collectionName));
+    }
+
+    private static QueryParam countParam(String collectionName) {
+        return QueryParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withExpr("")
+                .withOutFields(Collections.singletonList(COUNT_FIELD))
+                .withConsistencyLevel(ConsistencyLevelEnum.STRONG)
+                .build();
+    }
+
+    private long cacheExactCount(String key, R<QueryResults> response) {
+        QueryResultsWrapper wrapper = new QueryResultsWrapper(response.getData());
+        long rowCount = ((Number) wrapper.getFieldWrapper(COUNT_FIELD).getFieldData().get(0)).longValue();
+        counts.put(key, new CachedCount(rowCount));
+        return rowCount;
+    }
+
+    private Long fetchStatisticsRowCount(String collectionName) {
+        GetCollectionStatisticsParam statsParam = GetCollectionStatisticsParam.newBuilder()
+                .withCollectionName(collectionName)
+                .build();
+        R<GetCollectionStatisticsResponse> statsResponse = milvusClient.getCollectionStatistics(statsParam);
+        if (statsResponse.getStatus() != R.Status.Success.getCode()) {
+            log.warn("获取集合统计信息失败: {} {}", collectionName, statsResponse.getMessage());
+            return null;
+        }
+        for (KeyValuePair pair : statsResponse.getData().getStatsList()) {
+            if (pair.getKey().equals("row_count")) {
+                return Long.parseLong(pair.getValue());
+            }
+        }
+        return 0L;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "milvus-row-count-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class CachedCount {
+        private final AtomicLong count;
+        private final long loadedAt = System.nanoTime();
+
+        private CachedCount(long count) {
+            this.count = new AtomicLong(count);
+        }
+
+        private boolean isExpired(long ttlSeconds) {
+            return System.nanoTime() - loadedAt > TimeUnit.SECONDS.toNanos(ttlSeconds);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.ssssssss.milvus.service;
+
+import com.ssssssss.milvus.config.ClusterContext;
+import com.ssssssss.milvus.model.SearchRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.milvus.grpc.ArrayArray;
+import io.milvus.grpc.BoolArray;
+import io.milvus.grpc.DataType;
+import io.milvus.grpc.DoubleArray;
+import io.milvus.grpc.FieldData;
+import io.milvus.grpc.FloatArray;
+import io.milvus.grpc.IDs;
+import io.milvus.grpc.IntArray;
+import io.milvus.grpc.JSONArray;
+import io.milvus.grpc.LongArray;
+import io.milvus.grpc.ScalarField;
+import io.milvus.grpc.SearchResultData;
+import io.milvus.grpc.SearchResults;
+import io.milvus.grpc.StringArray;
+import io.milvus.grpc.VectorField;
+import io.milvus.param.R;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单向量搜索的微批合并器，把同一集合、相同搜索参数的并发单条搜索合并为一次多向量搜索
+ *
+ * <p>第一条请求到达时开启时间窗口，窗口到期或排队数达到上限时发出一次nq为批大小的搜索，
+ * 再按topks把结果拆回每条请求。一批只占用{@link AsyncRpcService}的一个进行中许可。</p>
+ *
+ * @author 冰点
+ */
+@Service
+@Slf4j
+public class SearchBatcher {
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private AsyncRpcService asyncRpcService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${milvus.search-batch.enabled:false}")
+    private boolean enabled;
+
+    @Value("${milvus.search-batch.window-ms:2}")
+    private long windowMs;
+
+    @Value("${milvus.search-batch.max-size:64}")
+    private int maxSize;
+
+    private final Map<Key, Batch> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private DistributionSummary batchSize;
+
+    private Timer queueDelay;
+
+    private Counter queries;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 提交一条单向量搜索，返回只含该查询结果的响应
+     *
+     * <p>request在提交后不能再修改，参数相同（equals）的请求才会合并。</p>
+     */
+    public CompletableFuture<R<SearchResults>> submit(String collectionName, List<Float> vector,
+                                                      SearchRequest request) {
+        Key key = new Key(ClusterContext.scoped(collectionName), vector.size(), request);
+        Entry entry = new Entry(vector, System.nanoTime());
+        Batch[] full = new Batch[1];
+        pending.compute(key, (k, batch) -> {
+            if (batch == null) {
+                Batch created = new Batch(ClusterContext.current(), collectionName, request);
+                created.timer = scheduler.schedule(() -> expire(k, created), windowMs, TimeUnit.MILLISECONDS);
+                batch = created;
+            }
+            batch.entries.add(entry);
+            if (batch.entries.size() >= maxSize) {
+                full[0] = batch;
+                return null;
+            }
+            return batch;
+        });
+        if (full[0] != null) {
+            full[0].timer.cancel(false);
+            dispatch(full[0]);
+        }
+        return entry.result;
+    }
+
+    /**
+     * 合并的批数、查询数及平均批大小和排队延迟
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("windowMs", windowMs);
+        stats.put("maxSize", maxSize);
+        stats.put("batches", batchSize.count());
+        stats.put("queries", (long) queries.count());
+        stats.put("meanBatchSize", batchSize.mean());
+        stats.put("maxBatchSize", batchSize.max());
+        stats.put("meanQueueDelayMs", queueDelay.mean(TimeUnit.MILLISECONDS));
+        stats.put("maxQueueDelayMs", queueDelay.max(TimeUnit.MILLISECONDS));
+        stats.put("pendingBatches", pending.size());
+        return stats;
+    }
+
+    private void expire(Key key, Batch batch) {
+        // 已因达到上限被取走的批次不会再次发出
+        if (pending.remove(key, batch)) {
+            dispatch(batch);
+        }
+    }
+
+    private void dispatch(Batch batch) {
+        long now = System.nanoTime();
+        List<List<Float>> vectors = new ArrayList<>(batch.entries.size());
+        for (Entry entry : batch.entries) {
+            vectors.add(entry.vector);
+            queueDelay.record(now - entry.enqueuedAt, TimeUnit.NANOSECONDS);
+        }
+        batchSize.record(vectors.size());
+        queries.increment(vectors.size());
+
+        ClusterContext.runIn(batch.clusterId, () -> asyncRpcService.call(
+                () -> searchService.searchAsync(batch.collectionName, vectors, batch.request), response -> response)
+                .whenComplete((response, e) -> {
+                    if (e != null) {
+                        batch.entries.forEach(entry -> entry.result.completeExceptionally(e));
+                    } else {
+                        complete(batch, response);
+                    }
+                }));
+    }
+
+    private void complete(Batch batch, R<SearchResults> response) {
+        if (response.getStatus() != R.Status.Success.getCode() || batch.entries.size() == 1) {
+            batch.entries.forEach(entry -> entry.result.complete(response));
+            return;
+        }
+        try {
+            SearchResultData data = response.getData().getResults();
+            int from = 0;
+            for (int i = 0; i < batch.entries.size(); i++) {
+                int count = (int) data.getTopks(i);
+                SearchResults results = response.getData().toBuilder()
+                        .setResults(slice(data, from, count))
+                        .build();
+                batch.entries.get(i).result.complete(R.success(results));
+                from += count;
+            }
+        } catch (RuntimeException e) {
+            log.error("拆分合并搜索结果失败: {}", batch.collectionName, e);
+            batch.entries.forEach(entry -> entry.result.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * 取出从第from行开始的count行，组成单条查询的结果
+     */
+    private static SearchResultData slice(SearchResultData data, int from, int count) {
+        int to = from + count;
+        SearchResultData.Builder builder = SearchResultData.newBuilder()
+                .setNumQueries(1)
+                .setTopK(data.getTopK())
+                .addTopks(count)
+                .addAllScores(data.getScoresList().subList(from, to))
+                .addAllOutputFields(data.getOutputFieldsList());
+        IDs ids = data.getIds();
+        if (ids.hasStrId()) {
+            builder.setIds(IDs.newBuilder().setStrId(StringArray.newBuilder()
+                    .addAllData(ids.getStrId().getDataList().subList(from, to))));
+        } else {
+            builder.setIds(IDs.newBuilder().setIntId(LongArray.newBuilder()
+                    .addAllData(ids.getIntId().getDataList().subList(from, to))));
+        }
+        for (FieldData field : data.getFieldsDataList()) {
+            builder.addFieldsData(slice(field, from, to));
+        }
+        return builder.build();
+    }
+
+    private static FieldData slice(FieldData field, int from, int to) {
+        FieldData.Builder builder = field.toBuilder();
+        VectorField vectors = field.getVectors();
+        int dimension = (int) vectors.getDim();
+        switch (field.getType()) {
+            case FloatVector -> builder.setVectors(vectors.toBuilder().setFloatVector(FloatArray.newBuilder()
+                    .addAllData(vectors.getFloatVector().getDataList().subList(from * dimension, to * dimension))));
+            case BinaryVector -> builder.setVectors(vectors.toBuilder().setBinaryVector(
+                    vectors.getBinaryVector().substring(from * dimension / 8, to * dimension / 8)));
+            case Float16Vector -> builder.setVectors(vectors.toBuilder().setFloat16Vector(
+                    vectors.getFloat16Vector().substring(from * dimension * 2, to * dimension * 2)));
+            case BFloat16Vector -> builder.setVectors(vectors.toBuilder().setBfloat16Vector(
+                    vectors.getBfloat16Vector().substring(from * dimension * 2, to * dimension * 2)));
+            default -> builder.setScalars(slice(field.getScalars(), field.getType(), from, to));
+        }
+        return builder.build();
+    }
+
+    private static ScalarField slice(ScalarField scalars, DataType type, int from, int to) {
+        ScalarField.Builder builder = ScalarField.newBuilder();
+        switch (type) {
+            case Bool -> builder.setBoolData(BoolArray.newBuilder()
+                    .addAllData(scalars.getBoolData().getDataList().subList(from, to)));
+            case Int8, Int16, Int32 -> builder.setIntData(IntArray.newBuilder()
+                    .addAllData(scalars.getIntData().getDataList().subList(from, to)));
+            case Int64 -> builder.setLongData(LongArray.newBuilder()
+                    .addAllData(scalars.getLongData().getDataList().subList(from, to)));
+            case Float -> builder.setFloatData(FloatArray.newBuilder()
+                    .addAllData(scalars.getFloatData().getDataList().subList(from, to)));
+            case Double -> builder.setDoubleData(DoubleArray.newBuilder()
+                    .addAllData(scalars.getDoubleData().getDataList().subList(from, to)));
+            case VarChar, String -> builder.setStringData(StringArray.newBuilder()
+                    .addAllData(scalars.getStringData().getDataList().subList(from, to)));
+            case JSON -> builder.setJsonData(JSONArray.newBuilder()
+                    .addAllData(scalars.getJsonData().getDataList().subList(from, to)));
+            case Array -> builder.setArrayData(ArrayArray.newBuilder()
+                    .setElementType(scalars.getArrayData().getElementType())
+                    .addAllData(scalars.getArrayData().getDataList().subList(from, to)));
+            default -> throw new IllegalStateException("不支持拆分的字段类型: " + type);
+        }
+        return builder.build();
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "milvus-search-batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        batchSize = DistributionSummary.builder("milvus.search.batch.size")
+                .description("Single-vector searches merged into one Milvus search")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        queueDelay = Timer.builder("milvus.search.batch.queue.delay")
+                .description("Time a single-vector search waited in the batch window")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        queries = Counter.builder("milvus.search.batch.queries")
+                .description("Single-vector searches sent through the batcher")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 合并键，collection已带集群前缀
+     */
+    private record Key(String collection, int dimension, SearchRequest request) {
+    }
+
+    private static final class Batch {
+        private final String clusterId;
+        private final String collectionName;
+        private final SearchRequest request;
+        private final List<Entry> entries = new ArrayList<>();
+        private ScheduledFuture<?> timer;
+
+        private Batch(String clusterId, String collectionName, SearchRequest request) {
+            this.clusterId = clusterId;
+            this.collectionName = collectionName;
+            this.request = request;
+        }
+    }
+
+    private static final class Entry {
+        private final List<Float> vector;
+        private final long enqueuedAt;
+        private final CompletableFuture<R<SearchResults>> result = new CompletableFuture<>();
+
+        private Entry(List<Float> vector, long enqueuedAt) {
+            this.vector = vector;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.ssssssss.milvus.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ssssssss.milvus.config.ClusterContext;
+import com.ssssssss.milvus.model.SearchRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.milvus.grpc.SearchResultData;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 搜索结果缓存，按集合、量化后的查询向量、topK、搜索参数和一致性级别缓存Milvus返回的结果
+ *
+ * <p>每个集合维护一个版本号，插入、删除、加载、删除集合和重建索引时递增版本号，
+ * 旧版本的缓存项不再命中，随后按LRU淘汰。缓存按结果的序列化字节数限制总大小。</p>
+ *
+ * @author 冰点
+ */
+@Service
+@Slf4j
+public class SearchCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${milvus.search-cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${milvus.search-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${milvus.search-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    /**
+     * 量化系数，查询向量各分量乘以该系数后取整作为缓存键
+     */
+    @Value("${milvus.search-cache.quantization:10000}")
+    private float quantization;
+
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    private Cache<Key, SearchResultData> cache;
+
+    /**
+     * 请求未指定时是否使用缓存
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 构造缓存键，版本号在搜索前读取，搜索期间发生的失效会使该键直接过期
+     */
+    public Key key(String collectionName, List<Float> vector, SearchRequest request) {
+        String scoped = ClusterContext.scoped(collectionName);
+        long generation = generations.computeIfAbsent(scoped, k -> new AtomicLong()).get();
+        String consistencyLevel = request.getConsistencyLevel() == null
+                ? null : request.getConsistencyLevel().toUpperCase(Locale.ROOT);
+        return new Key(scoped, generation, quantize(vector), request.getTopK(),
+                request.getMetricType(), request.getParams(), request.getNprobe(), request.getEf(),
+                request.getExpr(), request.getPartitionNames() == null ? List.of() : List.copyOf(request.getPartitionNames()),
+                request.getOutputFields() == null ? List.of() : List.copyOf(request.getOutputFields()),
+                consistencyLevel);
+    }
+
+    public SearchResultData get(Key key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(Key key, SearchResultData data) {
+        cache.put(key, data);
+    }
+
+    /**
+     * 集合数据或索引发生变化，使该集合的缓存失效
+     */
+    public void invalidate(String collectionName) {
+        AtomicLong generation = generations.get(ClusterContext.scoped(collectionName));
+        if (generation != null) {
+            generation.incrementAndGet();
+            invalidations.increment();
+        }
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 命中、未命中、淘汰等统计
+     */
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("evictedBytes", stats.evictionWeight());
+        result.put("invalidations", invalidations.sum());
+        result.put("entries", cache.estimatedSize());
+        result.put("bytes", cache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L));
+        result.put("maxBytes", maxBytes);
+        return result;
+    }
+
+    /**
+     * 量化查询向量，差异小于1/quantization的向量视为同一查询
+     */
+    private QuantizedVector quantize(List<Float> vector) {
+        long[] values = new long[vector.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.round((double) vector.get(i) * quantization);
+        }
+        return new QuantizedVector(values);
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, SearchResultData data) ->
+                        data.getSerializedSize() + key.vector().values.length * Long.BYTES + 128)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "milvus.search.cache");
+    }
+
+    /**
+     * 缓存键，collection已带集群前缀；按完整的量化向量比较，不会因哈希碰撞返回其他查询的结果
+     */
+    public record Key(String collection, long generation, QuantizedVector vector, int topK, String metricType,
+                      String params, Integer nprobe, Integer ef, String expr, List<String> partitionNames,
+                      List<String> outputFields, String consistencyLevel) {
+    }
+
+    /**
+     * 量化后的查询向量，按内容比较，哈希值预先计算
+     */
+    public static final class QuantizedVector {
+        private final long[] values;
+        private final int hash;
+
+        private QuantizedVector(long[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof QuantizedVector other
+                    && hash == other.hash && Arrays.equals(values, other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.ssssssss.milvus.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.ssssssss.milvus.config.ClusterContext;
+import com.ssssssss.milvus.model.SearchRequest;
+import com.ssssssss.milvus.util.VectorMath;
+import io.milvus.client.MilvusClient;
+import io.milvus.common.clientenum.ConsistencyLevelEnum;
+import io.milvus.grpc.DataType;
+import io.milvus.grpc.FieldData;
+import io.milvus.grpc.FloatArray;
+import io.milvus.grpc.SearchResultData;
+import io.milvus.grpc.SearchResults;
+import io.milvus.param.MetricType;
+import io.milvus.param.R;
+import io.milvus.param.dml.SearchParam;
+import io.milvus.response.SearchResultsWrapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 向量搜索服务，负责构建搜索参数、按nq上限切分批量查询并并发执行
+ *
+ * @author 冰点
+ */
+@Service
+@Slf4j
+public class SearchService {
+
+    private static final String DEFAULT_PARAMS = "{\"nprobe\": 10}";
+
+    @Autowired
+    private MilvusClient milvusClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CollectionMetadataService collectionMetadataService;
+
+    @Value("${milvus.search.max-nq:1024}")
+    private int maxNq;
+
+    @Value("${milvus.search.concurrency:4}")
+    private int concurrency;
+
+    private ExecutorService executor;
+
+    /**
+     * 执行一次搜索，向量数量不做切分
+     */
+    public R<SearchResults> search(String collectionName, List<List<Float>> vectors, SearchRequest request) {
+        return milvusClient.search(buildSearchParam(collectionName, vectors, request));
+    }
+
+    /**
+     * 异步执行一次搜索，不占用调用线程等待RPC返回
+     */
+    public ListenableFuture<R<SearchResults>> searchAsync(String collectionName, List<List<Float>> vectors,
+                                                          SearchRequest request) {
+        return milvusClient.searchAsync(buildSearchParam(collectionName, vectors, request));
+    }
+
+    /**
+     * 用结果中带回的候选向量按精确距离对第0条查询重排，返回前topK个候选的下标与距离
+     *
+     * <p>距离与Milvus的约定一致：L2为欧氏距离平方，越小越近；IP和COSINE为相似度，越大越近。</p>
+     */
+    public Reranked rerank(SearchResultData data, List<Float> query, String metricType, int topK) {
+        FieldData vectorField = null;
+        for (FieldData field : data.getFieldsDataList()) {
+            if (field.getType() == DataType.FloatVector) {
+                vectorField = field;
+                break;
+            }
+        }
+        if (vectorField == null) {
+            throw new IllegalStateException("搜索结果中没有向量字段，无法重排");
+        }
+        String metric = metricType.toUpperCase(Locale.ROOT);
+        boolean l2 = "L2".equals(metric);
+        boolean cosine = "COSINE".equals(metric);
+        if (!l2 && !cosine && !"IP".equals(metric)) {
+            throw new IllegalArgumentException("重排不支持的度量类型: " + metricType);
+        }
+        int dimension = (int) vectorField.getVectors().getDim();
+        if (dimension != query.size()) {
+            throw new IllegalArgumentException("查询向量维度为 " + query.size() + "，集合为 " + dimension);
+        }
+        int candidates = data.getTopksCount() > 0 ? (int) data.getTopks(0) : 0;
+
+        // 复制到连续的float[]，距离计算在基本类型数组上进行
+        FloatArray source = vectorField.getVectors().getFloatVector();
+        float[] vectors = new float[candidates * dimension];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = source.getData(i);
+        }
+        float[] q = new float[dimension];
+        for (int d = 0; d < dimension; d++) {
+            q[d] = query.get(d);
+        }
+        float queryNorm = cosine ? VectorMath.norm(q, 0, dimension) : 1f;
+
+        // 统一按"越小越近"排序，IP和COSINE取相反数
+        int k = Math.min(topK, candidates);
+        int[] rows = new int[k];
+        float[] keys = new float[k];
+        Arrays.fill(keys, Float.POSITIVE_INFINITY);
+        for (int row = 0; row < candidates; row++) {
+            int offset = row * dimension;
+            float key;
+            if (l2) {
+                key = VectorMath.l2(q, vectors, offset, dimension);
+            } else {
+                float dot = VectorMath.dot(q, vectors, offset, dimension);
+                if (cosine) {
+                    float denominator = queryNorm * VectorMath.norm(vectors, offset, dimension);
+                    dot = denominator == 0 ? 0f : dot / denominator;
+                }
+                key = -dot;
+            }
+            if (key < keys[k - 1]) {
+                int i = k - 1;
+                while (i > 0 && keys[i - 1] > key) {
+                    keys[i] = keys[i - 1];
+                    rows[i] = rows[i - 1];
+                    i--;
+                }
+                keys[i] = key;
+                rows[i] = row;
+            }
+        }
+        if (!l2) {
+            for (int i = 0; i < k; i++) {
+                keys[i] = -keys[i];
+            }
+        }
+        return new Reranked(rows, keys, candidates);
+    }
+
+    private SearchParam buildSearchParam(String collectionName, List<List<Float>> vectors, SearchRequest request) {
+        SearchParam.Builder builder = SearchParam.newBuilder()
+                .withCollectionName(collectionName)
+                .withMetricType(MetricType.valueOf(request.getMetricType().toUpperCase(Locale.ROOT)))
+                .withOutFields(request.getOutputFields() != null ? request.getOutputFields() : Collections.emptyList())
+                .withTopK(request.getTopK())
+                .withVectors(vectors)
+                .withVectorFieldName(collectionMetadataService.getVectorFieldName(collectionName))
+                .withParams(buildParams(request));
+        if (request.getExpr() != null && !request.getExpr().isBlank()) {
+            builder.withExpr(request.getExpr());
+        }
+        if (request.getPartitionNames() != null && !request.getPartitionNames().isEmpty()) {
+            builder.withPartitionNames(request.getPartitionNames());
+        }
+        if (request.getConsistencyLevel() != null) {
+            builder.withConsistencyLevel(
+                    ConsistencyLevelEnum.valueOf(request.getConsistencyLevel().toUpperCase(Locale.ROOT)));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 批量搜索，超过nq上限时切分为多个请求并发执行，按查询顺序返回每条查询的排序结果
+     */
+    public List<List<Map<String, Object>>> batchSearch(String collectionName, SearchRequest request) {
+        List<List<Float>> vectors = request.getVectors();
+        int chunkSize = Math.max(1, maxNq);
+        List<CompletableFuture<List<List<Map<String, Object>>>>> futures = new ArrayList<>();
+        for (int from = 0; from < vectors.size(); from += chunkSize) {
+            List<List<Float>> chunk = vectors.subList(from, Math.min(vectors.size(), from + chunkSize));
+            futures.add(CompletableFuture.supplyAsync(
+                    ClusterContext.wrap(() -> searchChunk(collectionName, chunk, request)), executor));
+        }
+
+        List<List<Map<String, Object>>> results = new ArrayList<>(vectors.size());
+        try {
+            for (CompletableFuture<List<List<Map<String, Object>>>> future : futures) {
+                results.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * 将第queryIndex条查询的结果转换为排序后的行
+     */
+    public List<Map<String, Object>> toRows(SearchResultsWrapper wrapper, int queryIndex) {
+        List<SearchResultsWrapper.IDScore> scores = wrapper.getIDScore(queryIndex);
+        List<Map<String, Object>> rows = new ArrayList<>(scores.size());
+        for (int i = 0; i < scores.size(); i++) {
+            SearchResultsWrapper.IDScore score = scores.get(i);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("rank", i + 1);
+            row.put("id", score.getStrID().isEmpty() ? score.getLongID() : score.getStrID());
+            row.put("distance", score.getScore());
+            row.putAll(score.getFieldValues());
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private List<List<Map<String, Object>>> searchChunk(String collectionName, List<List<Float>> chunk,
+                                                        SearchRequest request) {
+        R<SearchResults> response = search(collectionName, chunk, request);
+        if (response.getStatus() != R.Status.Success.getCode()) {
+            throw new IllegalStateException(response.getMessage());
+        }
+        SearchResultsWrapper wrapper = new SearchResultsWrapper(response.getData().getResults());
+        List<List<Map<String, Object>>> results = new ArrayList<>(chunk.size());
+        for (int q = 0; q < chunk.size(); q++) {
+            results.add(toRows(wrapper, q));
+        }
+        return results;
+    }
+
+    private String buildParams(SearchRequest request) {
+        if (request.getParams() != null && !request.getParams().isEmpty()) {
+            return request.getParams();
+        }
+        Map<String, Object> params = new LinkedHashMap<>();
+        if (request.getNprobe() != null) {
+            params.put("nprobe", request.getNprobe());
+        }
+        if (request.getEf() != null) {
+            params.put("ef", request.getEf());
+        }
+        if (params.isEmpty()) {
+            return DEFAULT_PARAMS;
+        }
+        try {
+            return objectMapper.writeValueAsString(params);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("搜索参数格式错误", e);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, concurrency), r -> {
+            Thread thread = new Thread(r, "milvus-search-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 本地重排结果
+     *
+     * @param rows       按距离排序后的候选下标
+     * @param scores     与rows对应的精确距离
+     * @param candidates 参与重排的候选数
+     */
+    public record Reranked(int[] rows, float[] scores, int candidates) {
+    }
+}
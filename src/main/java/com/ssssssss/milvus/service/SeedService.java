@@ -0,0 +1,242 @@
+package com.ssssssss.milvus.service;
+
+import com.ssssssss.milvus.config.ClusterContext;
+import com.ssssssss.milvus.model.BulkInsertResult;
+import com.ssssssss.milvus.model.SeedJob;
+import com.ssssssss.milvus.model.SeedRequest;
+import com.ssssssss.milvus.util.VectorCodec;
+import io.milvus.client.MilvusClient;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 合成数据填充服务，并发生成随机向量并流水线写入集合，用于快速构造大规模测试集合
+ *
+ * <p>生成线程池按批次并发生成float[]，协调线程按批次顺序提交到{@link InsertPipeline}，
+ * 生成领先写入的批次数有上限，内存占用与总行数无关。</p>
+ *
+ * @author 冰点
+ */
+@Service
+@Slf4j
+public class SeedService {
+
+    @Autowired
+    private MilvusClient milvusClient;
+
+    @Autowired
+    private CollectionMetadataService collectionMetadataService;
+
+    @Autowired
+    private RowCountService rowCountService;
+
+    @Autowired
+    private SearchCache searchCache;
+
+    @Autowired
+    private FlushScheduler flushScheduler;
+
+    @Value("${milvus.seed.max-rows:100000000}")
+    private long maxRows;
+
+    @Value("${milvus.seed.batch-bytes:4194304}")
+    private int batchBytes;
+
+    @Value("${milvus.seed.generate-threads:4}")
+    private int generateThreads;
+
+    @Value("${milvus.seed.max-in-flight:8}")
+    private int maxInFlight;
+
+    @Value("${milvus.seed.max-jobs:1}")
+    private int maxJobs;
+
+    private final Map<String, SeedJob> jobs = new ConcurrentHashMap<>();
+
+    private final Set<String> cancelled = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService jobExecutor;
+
+    private ExecutorService generateExecutor;
+
+    /**
+     * 校验请求并启动填充任务
+     */
+    public SeedJob start(SeedRequest request) {
+        if (request.getRows() <= 0 || request.getRows() > maxRows) {
+            throw new IllegalArgumentException("rows必须在1到" + maxRows + "之间");
+        }
+        // 主键按startId递增生成，VarChar主键只能由autoId生成
+        CollectionMetadataService.KeyFields keys = collectionMetadataService.getKeyFields(request.getCollectionName());
+        if (keys.stringKey() && !keys.autoId()) {
+            throw new IllegalArgumentException("填充按startId生成Int64主键，集合 " + request.getCollectionName()
+                    + " 的主键为VarChar");
+        }
+        int dimension = collectionMetadataService.getDimension(request.getCollectionName());
+        if (request.getDimension() != null && request.getDimension() != dimension) {
+            throw new IllegalArgumentException("向量维度不匹配: 集合为 " + dimension + "，请求为 " + request.getDimension());
+        }
+        SyntheticVectors generator = new SyntheticVectors(request.getDistribution(), dimension, request.getSeed(),
+                request.getClusters(), request.getSpread(), request.isNormalize());
+
+        SeedJob job = new SeedJob();
+        job.setId(UUID.randomUUID().toString().replace("-", "").substring(0, 12));
+        job.setClusterId(ClusterContext.current());
+        job.setCollectionName(request.getCollectionName());
+        job.setRows(request.getRows());
+        job.setDimension(dimension);
+        job.setDistribution(generator.distribution());
+        job.setSeed(request.getSeed());
+        job.setStartId(request.getStartId());
+        job.setStatus(SeedJob.Status.RUNNING);
+        job.setCreatedAt(System.currentTimeMillis());
+        jobs.put(job.getId(), job);
+
+        jobExecutor.execute(() -> ClusterContext.runIn(job.getClusterId(), () -> run(job, keys, generator)));
+        return job;
+    }
+
+    /**
+     * 取消任务，已写入的数据保留
+     */
+    public SeedJob cancel(String jobId) {
+        SeedJob job = get(jobId);
+        if (job.getStatus() == SeedJob.Status.RUNNING) {
+            cancelled.add(jobId);
+        }
+        return job;
+    }
+
+    public SeedJob get(String jobId) {
+        SeedJob job = jobs.get(jobId);
+        if (job == null || !job.getClusterId().equals(ClusterContext.current())) {
+            throw new IllegalArgumentException("填充任务不存在: " + jobId);
+        }
+        return job;
+    }
+
+    /**
+     * 获取当前集群的填充任务，按创建时间倒序
+     */
+    public List<SeedJob> list() {
+        String clusterId = ClusterContext.current();
+        List<SeedJob> result = new ArrayList<>();
+        for (SeedJob job : jobs.values()) {
+            if (job.getClusterId().equals(clusterId)) {
+                result.add(job);
+            }
+        }
+        result.sort(Comparator.comparingLong(SeedJob::getCreatedAt).reversed());
+        return result;
+    }
+
+    private void run(SeedJob job, CollectionMetadataService.KeyFields keys, SyntheticVectors generator) {
+        long start = System.nanoTime();
+        int batchRows = Math.max(1, batchBytes / (job.getDimension() * Float.BYTES + Long.BYTES));
+        long batchCount = (job.getRows() + batchRows - 1) / batchRows;
+        // 生成最多领先写入的批次数
+        int lookahead = Math.max(1, generateThreads) * 2;
+        InsertPipeline pipeline = new InsertPipeline(milvusClient, job.getCollectionName(), keys, maxInFlight);
+        Deque<CompletableFuture<float[][]>> generated = new ArrayDeque<>();
+        try {
+            long nextBatch = 0;
+            long submittedBatches = 0;
+            while (submittedBatches < batchCount && !cancelled.contains(job.getId())) {
+                while (nextBatch < batchCount && generated.size() < lookahead) {
+                    long batch = nextBatch++;
+                    int rows = (int) Math.min(batchRows, job.getRows() - batch * batchRows);
+                    generated.add(CompletableFuture.supplyAsync(() -> generator.batch(batch, rows), generateExecutor));
+                }
+                float[][] vectors = generated.poll().join();
+                long firstId = job.getStartId() + submittedBatches * batchRows;
+                pipeline.submit(keys.autoId() ? null : ids(firstId, vectors.length), VectorCodec.asLists(vectors));
+                submittedBatches++;
+
+                List<BulkInsertResult.BatchFailure> failures = pipeline.getFailures();
+                if (!failures.isEmpty()) {
+                    throw new IllegalStateException("批次插入失败: " + failures.get(0).getError());
+                }
+                progress(job, pipeline, start);
+            }
+            pipeline.await();
+            progress(job, pipeline, start);
+            List<BulkInsertResult.BatchFailure> failures = pipeline.getFailures();
+            if (!failures.isEmpty()) {
+                throw new IllegalStateException("批次插入失败: " + failures.get(0).getError());
+            }
+
+            if (cancelled.contains(job.getId())) {
+                flushScheduler.recordMutation(job.getCollectionName(), job.getRowsInserted());
+                job.setStatus(SeedJob.Status.CANCELLED);
+            } else {
+                flushScheduler.flushNow(job.getCollectionName());
+                job.setStatus(SeedJob.Status.COMPLETED);
+            }
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error("填充任务失败: {}", job.getId(), cause);
+            for (CompletableFuture<float[][]> future : generated) {
+                future.cancel(false);
+            }
+            try {
+                pipeline.await();
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            progress(job, pipeline, start);
+            job.setError(cause.getMessage());
+            job.setStatus(SeedJob.Status.FAILED);
+        } finally {
+            cancelled.remove(job.getId());
+            job.setFinishedAt(System.currentTimeMillis());
+            rowCountService.invalidate(job.getCollectionName());
+            searchCache.invalidate(job.getCollectionName());
+        }
+        log.info("填充任务结束: 任务={}, 集合={}, 状态={}, 行数={}, 速率={}/s", job.getId(), job.getCollectionName(),
+                job.getStatus(), job.getRowsInserted(), Math.round(job.getRowsPerSecond()));
+    }
+
+    private void progress(SeedJob job, InsertPipeline pipeline, long start) {
+        job.setRowsInserted(pipeline.getInsertedRows());
+        long elapsedNanos = System.nanoTime() - start;
+        job.setRowsPerSecond(elapsedNanos > 0 ? job.getRowsInserted() * 1e9 / elapsedNanos : 0);
+    }
+
+    private static List<Long> ids(long firstId, int count) {
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(firstId + i);
+        }
+        return ids;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger jobCounter = new AtomicInteger();
+        jobExecutor = Executors.newFixedThreadPool(Math.max(1, maxJobs), r -> {
+            Thread thread = new Thread(r, "milvus-seed-job-" + jobCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger generateCounter = new AtomicInteger();
+        generateExecutor = Executors.newFixedThreadPool(Math.max(1, generateThreads), r -> {
+            Thread thread = new Thread(r, "milvus-seed-" + generateCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        generateExecutor.shutdownNow();
+    }
+}
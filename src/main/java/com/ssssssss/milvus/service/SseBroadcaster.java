@@ -0,0 +1,195 @@
+package com.ssssssss.milvus.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按集群分组的SSE推送，浏览器订阅后接收该集群的事件
+ *
+ * <p>事件先放入每个订阅者的有界队列，由发送线程池按订阅者顺序写出，发布方不会被慢客户端阻塞；
+ * 队列积压达到上限的订阅者被断开，浏览器EventSource重连后重新拿到完整快照。</p>
+ *
+ * @author 冰点
+ */
+@Service
+@Slf4j
+public class SseBroadcaster {
+
+    @Value("${milvus.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${milvus.sse.max-queued-events:256}")
+    private int maxQueuedEvents;
+
+    @Value("${milvus.sse.send-threads:2}")
+    private int sendThreads;
+
+    private final Map<String, Map<SseEmitter, Subscriber>> emitters = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+
+    /**
+     * 订阅集群事件，连接超时后由浏览器EventSource自动重连
+     */
+    public SseEmitter subscribe(String clusterId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Map<SseEmitter, Subscriber> group = emitters.computeIfAbsent(clusterId, key -> new ConcurrentHashMap<>());
+        Subscriber subscriber = new Subscriber(emitter, group);
+        group.put(emitter, subscriber);
+        emitter.onCompletion(subscriber::remove);
+        emitter.onTimeout(subscriber::remove);
+        emitter.onError(e -> subscriber.remove());
+        return emitter;
+    }
+
+    /**
+     * 向订阅了该集群的所有浏览器推送事件，只入队不等待写出
+     */
+    public void publish(String clusterId, String event, Object data) {
+        Map<SseEmitter, Subscriber> group = emitters.get(clusterId);
+        if (group == null) {
+            return;
+        }
+        for (Subscriber subscriber : group.values()) {
+            subscriber.enqueue(SseEmitter.event().name(event).data(data));
+        }
+    }
+
+    /**
+     * 向单个浏览器推送事件，用于订阅时补发当前状态，与广播事件共用队列以保证顺序
+     */
+    public void send(SseEmitter emitter, String event, Object data) {
+        for (Map<SseEmitter, Subscriber> group : emitters.values()) {
+            Subscriber subscriber = group.get(emitter);
+            if (subscriber != null) {
+                subscriber.enqueue(SseEmitter.event().name(event).data(data));
+                return;
+            }
+        }
+    }
+
+    /**
+     * 当前有订阅的集群
+     */
+    public Set<String> activeClusters() {
+        Set<String> result = new HashSet<>();
+        emitters.forEach((clusterId, group) -> {
+            if (!group.isEmpty()) {
+                result.add(clusterId);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 集群当前的订阅数
+     */
+    public int subscribers(String clusterId) {
+        Map<SseEmitter, Subscriber> group = emitters.get(clusterId);
+        return group != null ? group.size() : 0;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, sendThreads), r -> {
+            Thread thread = new Thread(r, "milvus-sse-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 一个订阅者的待发送队列，同一时间最多一个发送线程在写出，保证事件顺序
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Map<SseEmitter, Subscriber> group;
+        private final Queue<SseEmitter.SseEventBuilder> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, Map<SseEmitter, Subscriber> group) {
+            this.emitter = emitter;
+            this.group = group;
+        }
+
+        private void enqueue(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (queued.incrementAndGet() > maxQueuedEvents) {
+                // 积压说明浏览器读得太慢，断开后由其重连
+                log.warn("SSE订阅者积压超过{}条事件，断开连接", maxQueuedEvents);
+                close(null);
+                return;
+            }
+            queue.add(event);
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            SseEmitter.SseEventBuilder event;
+            while (!closed && (event = queue.poll()) != null) {
+                queued.decrementAndGet();
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // 浏览器已断开
+                    close(e);
+                }
+            }
+            draining.set(false);
+            // 释放标记后可能有新事件入队但未能安排发送
+            if (!closed && !queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void close(Throwable error) {
+            if (closed) {
+                return;
+            }
+            remove();
+            if (error != null) {
+                emitter.completeWithError(error);
+            } else {
+                emitter.complete();
+            }
+        }
+
+        private void remove() {
+            closed = true;
+            queue.clear();
+            group.remove(emitter);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.ssssssss.milvus.service;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * 合成向量生成器
+ *
+ * <p>每个批次使用由种子和批次序号派生的独立{@link SplittableRandom}，批次可在任意线程上并发生成，
+ * 相同种子生成的数据与线程调度无关。</p>
+ *
+ * @author 冰点
+ */
+class SyntheticVectors {
+
+    static final String UNIFORM = "uniform";
+    static final String GAUSSIAN = "gaussian";
+    static final String CLUSTERED = "clustered";
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final String distribution;
+    private final int dimension;
+    private final long seed;
+    private final float spread;
+    private final boolean normalize;
+    private final float[][] centroids;
+
+    /**
+     * @param distribution uniform（[0, 1)均匀分布）、gaussian（标准正态分布）或clustered（围绕随机中心的正态分布）
+     * @param clusters     clustered的中心数
+     * @param spread       clustered中每个分量的标准差
+     * @param normalize    是否归一化为单位向量，用于IP/COSINE
+     */
+    SyntheticVectors(String distribution, int dimension, long seed, int clusters, float spread, boolean normalize) {
+        this.distribution = distribution == null ? UNIFORM : distribution.toLowerCase(Locale.ROOT);
+        if (!UNIFORM.equals(this.distribution) && !GAUSSIAN.equals(this.distribution)
+                && !CLUSTERED.equals(this.distribution)) {
+            throw new IllegalArgumentException("不支持的分布: " + distribution);
+        }
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("向量维度必须大于0");
+        }
+        this.dimension = dimension;
+        this.seed = seed;
+        this.spread = spread;
+        this.normalize = normalize;
+        if (CLUSTERED.equals(this.distribution)) {
+            if (clusters <= 0) {
+                throw new IllegalArgumentException("clusters必须大于0");
+            }
+            SplittableRandom random = new SplittableRandom(seed);
+            centroids = new float[clusters][dimension];
+            for (float[] centroid : centroids) {
+                for (int d = 0; d < dimension; d++) {
+                    centroid[d] = (float) random.nextDouble();
+                }
+            }
+        } else {
+            centroids = null;
+        }
+    }
+
+    String distribution() {
+        return distribution;
+    }
+
+    /**
+     * 生成第batchIndex个批次的rows条向量
+     */
+    float[][] batch(long batchIndex, int rows) {
+        SplittableRandom random = new SplittableRandom(mix(seed + (batchIndex + 1) * GOLDEN_GAMMA));
+        float[][] vectors = new float[rows][dimension];
+        for (float[] vector : vectors) {
+            switch (distribution) {
+                case GAUSSIAN -> {
+                    for (int d = 0; d < dimension; d++) {
+                        vector[d] = (float) random.nextGaussian();
+                    }
+                }
+                case CLUSTERED -> {
+                    float[] centroid = centroids[random.nextInt(centroids.length)];
+                    for (int d = 0; d < dimension; d++) {
+                        vector[d] = centroid[d] + (float) random.nextGaussian() * spread;
+                    }
+                }
+                default -> {
+                    for (int d = 0; d < dimension; d++) {
+                        vector[d] = (float) random.nextDouble();
+                    }
+                }
+            }
+            if (normalize) {
+                normalize(vector);
+            }
+        }
+        return vectors;
+    }
+
+    private static void normalize(float[] vector) {
+        double sum = 0;
+        for (float value : vector) {
+            sum += value * value;
+        }
+        if (sum == 0) {
+            return;
+        }
+        float scale = (float) (1 / Math.sqrt(sum));
+        for (int d = 0; d < vector.length; d++) {
+            vector[d] *= scale;
+        }
+    }
+
+    /**
+     * SplitMix64的混合函数，使相邻批次的种子互不相关
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,254 @@
+package com.ssssssss.milvus.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import io.milvus.grpc.DataType;
+import io.milvus.grpc.FieldData;
+import io.milvus.grpc.FloatArray;
+import io.milvus.grpc.IDs;
+import io.milvus.grpc.QueryResults;
+import io.milvus.grpc.ScalarField;
+import io.milvus.grpc.SearchResultData;
+import io.milvus.response.FieldDataWrapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 搜索和查询结果的JSON写出工具类
+ *
+ * <p>直接从protobuf中的基本类型数组读取id、距离和向量写入JsonGenerator，
+ * 不构建逐行Map，也不装箱向量。行结构与逐行Map的序列化结果一致。</p>
+ *
+ * @author 冰点
+ */
+public class ResultJsonWriter {
+
+    /**
+     * 结果格式
+     *
+     * @param includeVectors 是否输出向量字段
+     * @param idsOnly        搜索只输出id和距离，查询只输出id
+     * @param precision      浮点数保留的小数位数，小于0时不处理
+     */
+    public record Format(boolean includeVectors, boolean idsOnly, int precision) {
+
+        public static final Format DEFAULT = new Format(true, false, -1);
+
+        public Format {
+            if (precision > 7) {
+                throw new IllegalArgumentException("precision不能大于7");
+            }
+        }
+
+        boolean writeVectors() {
+            return includeVectors && !idsOnly;
+        }
+    }
+
+    /**
+     * 写出JSON内容
+     */
+    @FunctionalInterface
+    public interface Content {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * 以流式响应体写出JSON，内容直接写入响应输出流
+     */
+    public static ResponseEntity<StreamingResponseBody> ok(JsonFactory factory, Content content) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = createGenerator(factory, out)) {
+                content.write(generator);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * 以流式响应体写出错误，结构与{@link ResponseUtil#error(HttpStatus, String)}一致
+     *
+     * <p>声明为{@code ResponseEntity<StreamingResponseBody>}的接口只能返回流式响应体，错误也需经由这里写出。</p>
+     */
+    public static ResponseEntity<StreamingResponseBody> error(JsonFactory factory, HttpStatus status, String message) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = createGenerator(factory, out)) {
+                generator.writeStartObject();
+                generator.writeStringField("error", message);
+                generator.writeEndObject();
+            }
+        };
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * 创建写出结果用的JsonGenerator，浮点数使用Schubfach算法格式化，关闭时不关闭输出流
+     */
+    public static JsonGenerator createGenerator(JsonFactory factory, OutputStream out) throws IOException {
+        JsonGenerator generator = factory.createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.enable(StreamWriteFeature.USE_FAST_DOUBLE_WRITER.mappedFeature());
+        return generator;
+    }
+
+    /**
+     * 写出第queryIndex条查询的搜索结果数组，每行为rank、id、distance和输出字段
+     */
+    public static void writeSearchRows(JsonGenerator generator, SearchResultData data, int queryIndex, Format format)
+            throws IOException {
+        writeSearchRows(generator, data, queryIndex, format, null, null);
+    }
+
+    /**
+     * 按给定顺序写出第queryIndex条查询的部分结果，用于本地重排后的输出
+     *
+     * @param order  写出的行在该查询结果中的下标，为null时按原顺序写出全部行
+     * @param scores 与order对应的距离，为null时使用Milvus返回的距离
+     */
+    public static void writeSearchRows(JsonGenerator generator, SearchResultData data, int queryIndex, Format format,
+                                       int[] order, float[] scores) throws IOException {
+        long offset = 0;
+        for (int q = 0; q < queryIndex; q++) {
+            offset += data.getTopks(q);
+        }
+        int from = (int) offset;
+        int count = queryIndex < data.getTopksCount() ? (int) data.getTopks(queryIndex) : 0;
+        if (order != null) {
+            count = order.length;
+        }
+        IDs ids = data.getIds();
+        float scale = scale(format.precision());
+
+        generator.writeStartArray();
+        for (int i = 0; i < count; i++) {
+            int row = from + (order != null ? order[i] : i);
+            generator.writeStartObject();
+            if (!format.idsOnly()) {
+                generator.writeNumberField("rank", i + 1);
+            }
+            if (ids.hasStrId()) {
+                generator.writeStringField("id", ids.getStrId().getData(row));
+            } else {
+                generator.writeNumberField("id", ids.getIntId().getData(row));
+            }
+            generator.writeFieldName("distance");
+            writeFloat(generator, scores != null ? scores[i] : data.getScores(row), scale);
+            if (!format.idsOnly()) {
+                for (FieldData field : data.getFieldsDataList()) {
+                    writeField(generator, field, row, format, scale);
+                }
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * 写出查询结果数组，每行包含返回的全部字段，主键字段名为id
+     */
+    public static void writeQueryRows(JsonGenerator generator, QueryResults results, Format format)
+            throws IOException {
+        writeQueryRows(generator, results, "id", format);
+    }
+
+    /**
+     * 写出查询结果数组，主键字段在每行最前，其余字段按返回顺序写出
+     */
+    public static void writeQueryRows(JsonGenerator generator, QueryResults results, String primaryField,
+                                      Format format) throws IOException {
+        FieldData idField = null;
+        for (FieldData field : results.getFieldsDataList()) {
+            if (primaryField.equals(field.getFieldName())) {
+                idField = field;
+            }
+        }
+        int rows = results.getFieldsDataCount() == 0 ? 0 : rowCount(results.getFieldsData(0));
+        float scale = scale(format.precision());
+
+        generator.writeStartArray();
+        for (int row = 0; row < rows; row++) {
+            generator.writeStartObject();
+            if (idField != null) {
+                writeField(generator, idField, row, format, scale);
+            }
+            if (!format.idsOnly()) {
+                for (FieldData field : results.getFieldsDataList()) {
+                    if (field != idField) {
+                        writeField(generator, field, row, format, scale);
+                    }
+                }
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeField(JsonGenerator generator, FieldData field, int row, Format format, float scale)
+            throws IOException {
+        if (field.getType() == DataType.FloatVector) {
+            if (!format.writeVectors()) {
+                return;
+            }
+            int dimension = (int) field.getVectors().getDim();
+            FloatArray vector = field.getVectors().getFloatVector();
+            int offset = row * dimension;
+            generator.writeFieldName(field.getFieldName());
+            generator.writeStartArray();
+            for (int d = 0; d < dimension; d++) {
+                writeFloat(generator, vector.getData(offset + d), scale);
+            }
+            generator.writeEndArray();
+            return;
+        }
+        ScalarField scalars = field.getScalars();
+        generator.writeFieldName(field.getFieldName());
+        switch (field.getType()) {
+            case Int64 -> generator.writeNumber(scalars.getLongData().getData(row));
+            case Int32, Int16, Int8 -> generator.writeNumber(scalars.getIntData().getData(row));
+            case Float -> writeFloat(generator, scalars.getFloatData().getData(row), scale);
+            case Double -> generator.writeNumber(scalars.getDoubleData().getData(row));
+            case Bool -> generator.writeBoolean(scalars.getBoolData().getData(row));
+            case VarChar, String -> generator.writeString(scalars.getStringData().getData(row));
+            // JSON字段存储的即为JSON文本，原样写出
+            case JSON -> generator.writeRawValue(scalars.getJsonData().getData(row).toStringUtf8());
+            // 其余类型（数组、二进制向量等）较少出现，交给SDK转换
+            default -> generator.writeObject(new FieldDataWrapper(field).valueByIdx(row));
+        }
+    }
+
+    private static int rowCount(FieldData field) {
+        ScalarField scalars = field.getScalars();
+        return switch (field.getType()) {
+            case FloatVector -> field.getVectors().getDim() == 0 ? 0
+                    : (int) (field.getVectors().getFloatVector().getDataCount() / field.getVectors().getDim());
+            case Int64 -> scalars.getLongData().getDataCount();
+            case Int32, Int16, Int8 -> scalars.getIntData().getDataCount();
+            case Float -> scalars.getFloatData().getDataCount();
+            case Double -> scalars.getDoubleData().getDataCount();
+            case Bool -> scalars.getBoolData().getDataCount();
+            case VarChar, String -> scalars.getStringData().getDataCount();
+            case JSON -> scalars.getJsonData().getDataCount();
+            default -> (int) new FieldDataWrapper(field).getRowCount();
+        };
+    }
+
+    private static float scale(int precision) {
+        return precision < 0 ? 0f : (float) Math.pow(10, precision);
+    }
+
+    /**
+     * 按小数位数舍入后写出，舍入后的float按最短形式输出，例如0.123
+     */
+    private static void writeFloat(JsonGenerator generator, float value, float scale) throws IOException {
+        if (scale > 0f && Float.isFinite(value)) {
+            value = (float) (Math.rint((double) value * scale) / scale);
+        }
+        generator.writeNumber(value);
+    }
+}
@@ -0,0 +1,123 @@
+package com.ssssssss.milvus.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * 向量二进制编解码工具类，格式为小端float32
+ *
+ * <p>请求体可选16字节头部：4字节魔数"MVF1"、int32向量条数、int32维度、int32保留位，
+ * 之后为连续的float32数据；无头部时按集合维度切分。</p>
+ *
+ * @author 冰点
+ */
+public class VectorCodec {
+
+    public static final String MEDIA_TYPE = "application/octet-stream";
+
+    private static final int MAGIC = 0x3146564D; // "MVF1" 小端
+    private static final int HEADER_BYTES = 16;
+
+    /**
+     * 解码二进制向量
+     *
+     * @param body      请求体
+     * @param dimension 集合定义的维度
+     */
+    public static float[][] decode(byte[] body, int dimension) {
+        ByteBuffer buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        int count;
+        if (buffer.remaining() >= HEADER_BYTES && buffer.getInt(0) == MAGIC) {
+            count = buffer.getInt(4);
+            int dim = buffer.getInt(8);
+            // 空批次和0维度无法发给Milvus，0维度还会使按维度切分时除零
+            if (count <= 0) {
+                throw new IllegalArgumentException("头部声明的向量条数必须大于0，实际 " + count);
+            }
+            if (dim <= 0) {
+                throw new IllegalArgumentException("头部声明的维度必须大于0，实际 " + dim);
+            }
+            if (dim != dimension) {
+                throw new IllegalArgumentException("向量维度不匹配: 期望 " + dimension + "，实际 " + dim);
+            }
+            buffer.position(HEADER_BYTES);
+            if ((long) count * dim * Float.BYTES != buffer.remaining()) {
+                throw new IllegalArgumentException("请求体长度与头部声明的条数不一致");
+            }
+        } else {
+            if (dimension <= 0) {
+                throw new IllegalArgumentException("集合维度无效: " + dimension);
+            }
+            int rowBytes = dimension * Float.BYTES;
+            if (buffer.remaining() == 0 || buffer.remaining() % rowBytes != 0) {
+                throw new IllegalArgumentException("请求体长度 " + buffer.remaining() + " 不是维度 " + dimension + " 的整数倍");
+            }
+            count = buffer.remaining() / rowBytes;
+        }
+
+        float[][] vectors = new float[count][dimension];
+        FloatBuffer floats = buffer.asFloatBuffer();
+        for (int i = 0; i < count; i++) {
+            floats.get(vectors[i]);
+        }
+        return vectors;
+    }
+
+    /**
+     * 将基本类型数组包装为List视图，避免预先装箱
+     */
+    public static List<Float> asList(float[] vector) {
+        return new FloatArrayList(vector);
+    }
+
+    /**
+     * 将多条向量包装为SDK所需的列表
+     */
+    public static List<List<Float>> asLists(float[][] vectors) {
+        List<List<Float>> lists = new ArrayList<>(vectors.length);
+        for (float[] vector : vectors) {
+            lists.add(new FloatArrayList(vector));
+        }
+        return lists;
+    }
+
+    /**
+     * 编码搜索结果：int32条数，之后每条为int64 id + float32距离
+     */
+    public static byte[] encodeSearchResults(long[] ids, float[] scores) {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + ids.length * (Long.BYTES + Float.BYTES))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            buffer.putLong(ids[i]);
+            buffer.putFloat(scores[i]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 基于float[]的只读List视图
+     */
+    private static final class FloatArrayList extends AbstractList<Float> implements RandomAccess {
+        private final float[] values;
+
+        private FloatArrayList(float[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Float get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.ssssssss.milvus.controller;
+
+import com.ssssssss.milvus.config.MilvusClientRegistry;
+import com.ssssssss.milvus.service.*;
+import io.milvus.client.MilvusClient;
+import io.milvus.grpc.*;
+import io.milvus.param.R;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 流式JSON接口的响应体测试，确认结果经由StreamingResponseBody写出而不是被Jackson序列化为空对象
+ *
+ * @author 冰点
+ */
+@WebMvcTest(MilvusController.class)
+class MilvusControllerStreamingTest {
+
+    private static final CollectionMetadataService.KeyFields KEYS =
+            new CollectionMetadataService.KeyFields("id", false, false, "vector");
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockBean
+    private MilvusClient milvusClient;
+    @MockBean
+    private MilvusClientRegistry clientRegistry;
+    @MockBean
+    private MilvusService milvusService;
+    @MockBean
+    private CollectionMetadataService collectionMetadataService;
+    @MockBean
+    private BulkInsertService bulkInsertService;
+    @MockBean
+    private RowCountService rowCountService;
+    @MockBean
+    private SearchService searchService;
+    @MockBean
+    private SearchCache searchCache;
+    @MockBean
+    private AsyncRpcService asyncRpcService;
+    @MockBean
+    private SearchBatcher searchBatcher;
+    @MockBean
+    private ClusterStatePoller clusterStatePoller;
+    @MockBean
+    private FlushScheduler flushScheduler;
+    @MockBean
+    private BulkDeleteService bulkDeleteService;
+    @MockBean
+    private ExportService exportService;
+    @MockBean
+    private AdminJobService adminJobService;
+    @MockBean
+    private IndexService indexService;
+    @MockBean
+    private BenchmarkService benchmarkService;
+
+    @Test
+    void collectionDataIsStreamed() throws Exception {
+        when(collectionMetadataService.getKeyFields("docs")).thenReturn(KEYS);
+        when(collectionMetadataService.getFieldNames("docs", false)).thenReturn(List.of("id"));
+        when(rowCountService.getRowCountAsync("docs")).thenReturn(CompletableFuture.completedFuture(2L));
+        QueryResults results = QueryResults.newBuilder()
+                .addFieldsData(FieldData.newBuilder()
+                        .setFieldName("id")
+                        .setType(DataType.Int64)
+                        .setScalars(ScalarField.newBuilder()
+                                .setLongData(LongArray.newBuilder().addData(1L).addData(2L))))
+                .build();
+        respondWith(R.success(results));
+
+        perform(get("/api/milvus/collections/docs/data").param("includeVectors", "false"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.data[0].id").value(1))
+                .andExpect(jsonPath("$.data[1].id").value(2))
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    void collectionDataErrorIsStreamed() throws Exception {
+        when(collectionMetadataService.getKeyFields("missing"))
+                .thenThrow(new IllegalArgumentException("集合不存在: missing"));
+
+        perform(get("/api/milvus/collections/missing/data"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("集合不存在: missing"));
+    }
+
+    @Test
+    void searchResultsAreStreamed() throws Exception {
+        when(collectionMetadataService.getVectorFieldName("docs")).thenReturn("vector");
+        SearchResults results = SearchResults.newBuilder()
+                .setResults(SearchResultData.newBuilder()
+                        .setNumQueries(1)
+                        .setTopK(2)
+                        .addTopks(2)
+                        .setIds(IDs.newBuilder().setIntId(LongArray.newBuilder().addData(7L).addData(3L)))
+                        .addScores(0.5f)
+                        .addScores(1.5f))
+                .build();
+        respondWith(R.success(results));
+
+        perform(post("/api/milvus/collections/docs/search")
+                        .param("idsOnly", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[0.1, 0.2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].id").value(7))
+                .andExpect(jsonPath("$.results[0].distance").value(0.5))
+                .andExpect(jsonPath("$.results[1].id").value(3))
+                .andExpect(jsonPath("$.cached").value(false));
+    }
+
+    @Test
+    void searchFailureIsStreamed() throws Exception {
+        when(collectionMetadataService.getVectorFieldName("docs")).thenReturn("vector");
+        respondWith(R.failed(R.Status.IllegalArgument, "bad metric"));
+
+        perform(post("/api/milvus/collections/docs/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[0.1, 0.2]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("bad metric"));
+    }
+
+    @Test
+    void exportIsStreamed() throws Exception {
+        when(collectionMetadataService.getKeyFields("docs")).thenReturn(KEYS);
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(6);
+            out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).export(anyString(), eq("docs"), eq(KEYS), eq(ExportService.FORMAT_NDJSON),
+                anyInt(), anyBoolean(), any(OutputStream.class));
+
+        perform(get("/api/milvus/collections/docs/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
+    @Test
+    void exportRejectsBinaryForVarCharKeys() throws Exception {
+        when(collectionMetadataService.getKeyFields("docs"))
+                .thenReturn(new CollectionMetadataService.KeyFields("pk", true, false, "vector"));
+
+        perform(get("/api/milvus/collections/docs/export").param("format", ExportService.FORMAT_BINARY))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("二进制导出只支持Int64主键，请使用ndjson格式"));
+    }
+
+    /**
+     * 让异步RPC直接以给定响应完成
+     */
+    @SuppressWarnings("unchecked")
+    private void respondWith(R<?> response) {
+        when(asyncRpcService.call(any(), any())).thenAnswer(invocation -> {
+            Function<Object, Object> then = invocation.getArgument(1);
+            return CompletableFuture.completedFuture(then.apply(response));
+        });
+    }
+
+    /**
+     * 执行请求并完成异步派发：先取CompletableFuture的结果，流式响应体再次进入异步处理时等待其写完
+     */
+    private ResultActions perform(RequestBuilder request) throws Exception {
+        MvcResult started = mvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+        started.getAsyncResult();
+        ResultActions dispatched = mvc.perform(asyncDispatch(started));
+        MvcResult result = dispatched.andReturn();
+        if (!result.getRequest().isAsyncStarted()) {
+            return dispatched;
+        }
+        result.getAsyncResult();
+        return mvc.perform(asyncDispatch(result));
+    }
+}